@@ -8,24 +8,53 @@ import java.util.Random;
 
 /**
  * Table of {@code public static} methods on builtin integers.
+ * <p>
+ * The most common operations have a fast path for operands that fit in a {@code long}, falling back to
+ * {@link BigInteger} on overflow.
  *
  * @author: AndreiS
  */
 public class BuiltinIntOperations {
 
     public static IntToken add(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            try {
+                return IntToken.of(Math.addExact(term1.longValue(), term2.longValue()));
+            } catch (ArithmeticException e) {
+                // overflow, use BigInteger below
+            }
+        }
         return IntToken.of(term1.bigIntegerValue().add(term2.bigIntegerValue()));
     }
 
     public static IntToken sub(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            try {
+                return IntToken.of(Math.subtractExact(term1.longValue(), term2.longValue()));
+            } catch (ArithmeticException e) {
+                // overflow, use BigInteger below
+            }
+        }
         return IntToken.of(term1.bigIntegerValue().subtract(term2.bigIntegerValue()));
     }
 
     public static IntToken mul(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            try {
+                return IntToken.of(Math.multiplyExact(term1.longValue(), term2.longValue()));
+            } catch (ArithmeticException e) {
+                // overflow, use BigInteger below
+            }
+        }
         return IntToken.of(term1.bigIntegerValue().multiply(term2.bigIntegerValue()));
     }
 
     public static IntToken div(IntToken term1, IntToken term2, TermContext context) {
+        // Long.MIN_VALUE / -1 overflows
+        if (term1.isLong() && term2.isLong() && term2.longValue() != 0
+                && !(term1.longValue() == Long.MIN_VALUE && term2.longValue() == -1)) {
+            return IntToken.of(term1.longValue() / term2.longValue());
+        }
         try {
             return IntToken.of(term1.bigIntegerValue().divide(term2.bigIntegerValue()));
         } catch (ArithmeticException e) {
@@ -123,26 +152,44 @@ public class BuiltinIntOperations {
     }
 
     public static BoolToken eq(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            return BoolToken.of(term1.longValue() == term2.longValue());
+        }
         return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) == 0);
     }
 
     public static BoolToken ne(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            return BoolToken.of(term1.longValue() != term2.longValue());
+        }
         return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) != 0);
     }
 
     public static BoolToken gt(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            return BoolToken.of(term1.longValue() > term2.longValue());
+        }
         return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) > 0);
     }
 
     public static BoolToken ge(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            return BoolToken.of(term1.longValue() >= term2.longValue());
+        }
         return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) >= 0);
     }
 
     public static BoolToken lt(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            return BoolToken.of(term1.longValue() < term2.longValue());
+        }
         return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) < 0);
     }
 
     public static BoolToken le(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            return BoolToken.of(term1.longValue() <= term2.longValue());
+        }
         return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) <= 0);
     }
 
@@ -171,7 +171,7 @@ public class BuiltinMapOperations {
     }
 
     public static BuiltinSet keys(BuiltinMap map, TermContext context) {
-        if (map.getEntries().isEmpty() && !map.isEmpty()) {
+        if (map.concreteSize() == 0 && !map.isEmpty()) {
             return null;
         }
         BuiltinSet.Builder builder = BuiltinSet.builder(context.global());
@@ -190,7 +190,7 @@ public class BuiltinMapOperations {
     }
 
     public static BoolToken in_keys(Term key, BuiltinMap map, TermContext context) {
-        boolean in = map.getEntries().containsKey(key);
+        boolean in = map.containsKey(key);
         BoolToken r = BoolToken.of(in);
         if (in) {
             return r;
@@ -223,7 +223,7 @@ public class BuiltinMapOperations {
     }
 
     public static Term choice(BuiltinMap map, TermContext context) {
-        if (!map.getEntries().isEmpty()) {
+        if (map.concreteSize() != 0) {
             return map.getEntries().keySet().iterator().next();
         } else if (map.isEmpty()) {
             return Bottom.BOTTOM;
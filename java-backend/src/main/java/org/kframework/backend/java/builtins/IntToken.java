@@ -12,6 +12,11 @@ import java.math.BigInteger;
 
 /**
  * An integer token. Integer tokens have arbitrary precision.
+ * <p>
+ * Values that fit in a {@code long} are kept as a primitive, and only converted to a {@link BigInteger} on demand,
+ * so that hashing, comparing them, e.g. as keys of a {@link org.kframework.backend.java.kil.BuiltinMap}, and the
+ * arithmetic in {@link BuiltinIntOperations} do not go through {@code BigInteger} unless they overflow. Small values
+ * are shared.
  *
  * @author AndreiS
  */
@@ -19,25 +24,55 @@ public final class IntToken extends Token {
 
     public static final Sort SORT = Sort.INT;
 
-    /* BigInteger javaBackendValue wrapped by this IntToken */
-    private final BigInteger value;
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final IntToken[] cache = new IntToken[CACHE_HIGH - CACHE_LOW + 1];
 
+    static {
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = new IntToken(i + CACHE_LOW);
+        }
+    }
+
+    /* BigInteger javaBackendValue wrapped by this IntToken, computed lazily if isLong */
+    private volatile BigInteger value;
+    /* true if the value fits in a long, in which case it is stored in longValue instead of value */
+    private final boolean isLong;
+    private final long longValue;
+
+    /**
+     * Only for values that do not fit in a {@code long}; the others go through {@link #IntToken(long)}.
+     */
     private IntToken(BigInteger value) {
+        assert value.bitLength() >= Long.SIZE;
         this.value = value;
+        this.isLong = false;
+        this.longValue = 0;
+    }
+
+    private IntToken(long value) {
+        this.isLong = true;
+        this.longValue = value;
     }
 
     /**
-     * Returns a {@code IntToken} representation of the given {@link BigInteger} javaBackendValue. The
-     * {@code IntToken} instances are cached to ensure uniqueness (subsequent invocations of this
-     * method with the same {@code BigInteger} javaBackendValue return the same {@code IntToken} object).
+     * Returns a {@code IntToken} representation of the given {@link BigInteger} javaBackendValue. Small values are
+     * cached, so that subsequent invocations of this method with the same small value return the same
+     * {@code IntToken} object.
      */
     public static IntToken of(BigInteger value) {
         assert value != null;
+        if (value.bitLength() < Long.SIZE) {
+            return of(value.longValue());
+        }
         return new IntToken(value);
     }
 
     public static IntToken of(long value) {
-        return of(BigInteger.valueOf(value));
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return cache[(int) value - CACHE_LOW];
+        }
+        return new IntToken(value);
     }
 
     public static IntToken of(String value) {
@@ -58,22 +93,37 @@ public final class IntToken extends Token {
      * Returns a {@link BigInteger} representation of the (interpreted) javaBackendValue of this IntToken.
      */
     public BigInteger bigIntegerValue() {
+        BigInteger value = this.value;
+        if (value == null) {
+            value = BigInteger.valueOf(longValue);
+            this.value = value;
+        }
         return value;
     }
 
+    /**
+     * @return true if the value fits in a {@code long}, and {@link #longValue()} returns it without conversion.
+     */
+    public boolean isLong() {
+        return isLong;
+    }
+
     /**
      * Returns an {@code int} representation of the (interpreted) javaBackendValue of this
      * IntToken.
      * @throws ArithmeticException Integer does not fit in an int.
      */
     public int intValue() {
-        if (value.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
+        if (isLong && longValue == (int) longValue) {
+            return (int) longValue;
+        }
+        if (bigIntegerValue().compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
             throw new ArithmeticException("IntToken too large for Int");
         }
-        if (value.compareTo(BigInteger.valueOf(Integer.MIN_VALUE)) < 0) {
+        if (bigIntegerValue().compareTo(BigInteger.valueOf(Integer.MIN_VALUE)) < 0) {
             throw new ArithmeticException("IntToken too low for Int");
         }
-        return (int)value.longValue();
+        return (int) bigIntegerValue().longValue();
     }
 
     /**
@@ -82,13 +132,16 @@ public final class IntToken extends Token {
      * @throws ArithmeticException Integer does not fit in a long.
      */
     public long longValue() {
-        if (value.compareTo(BigInteger.valueOf(Long.MAX_VALUE)) > 0) {
+        if (isLong) {
+            return longValue;
+        }
+        if (bigIntegerValue().compareTo(BigInteger.valueOf(Long.MAX_VALUE)) > 0) {
             throw new ArithmeticException("IntToken too large for Long");
         }
-        if (value.compareTo(BigInteger.valueOf(Long.MIN_VALUE)) < 0) {
+        if (bigIntegerValue().compareTo(BigInteger.valueOf(Long.MIN_VALUE)) < 0) {
             throw new ArithmeticException("IntToken too low for Long");
         }
-        return value.longValue();
+        return bigIntegerValue().longValue();
     }
 
     /**
@@ -97,13 +150,13 @@ public final class IntToken extends Token {
      * @throws ArithmeticException Integer is not in the range of an unsigned byte.
      */
     public byte unsignedByteValue() {
-        if (value.compareTo(BigInteger.valueOf(255)) > 0) {
+        if (bigIntegerValue().compareTo(BigInteger.valueOf(255)) > 0) {
             throw new ArithmeticException("IntToken too large for byte");
         }
-        if (value.compareTo(BigInteger.valueOf(0)) < 0) {
+        if (bigIntegerValue().compareTo(BigInteger.valueOf(0)) < 0) {
             throw new ArithmeticException("IntToken too low for byte");
         }
-        return (byte)value.longValue();
+        return (byte) bigIntegerValue().longValue();
     }
 
     @Override
@@ -116,12 +169,12 @@ public final class IntToken extends Token {
      */
     @Override
     public String javaBackendValue() {
-        return value.toString();
+        return isLong ? Long.toString(longValue) : value.toString();
     }
 
     @Override
     protected int computeHash() {
-        return value.hashCode();
+        return isLong ? Long.hashCode(longValue) : value.hashCode();
     }
 
     @Override
@@ -131,6 +184,9 @@ public final class IntToken extends Token {
 
         IntToken intToken = (IntToken) o;
 
+        if (isLong || intToken.isLong) {
+            return isLong == intToken.isLong && longValue == intToken.longValue;
+        }
         return value.equals(intToken.value);
 
     }
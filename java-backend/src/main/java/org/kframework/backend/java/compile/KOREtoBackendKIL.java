@@ -82,7 +82,8 @@ public class KOREtoBackendKIL {
     }
 
     public Token KToken(String s, org.kframework.kore.Sort sort, Att att) {
-        return !sort.equals(KORE.Sort("KBoolean")) ? Token.of(Sort(sort), s) : Token.of(Sort(Sorts.Bool()), s);
+        return global.termInterner.intern(
+                !sort.equals(KORE.Sort("KBoolean")) ? Token.of(Sort(sort), s) : Token.of(Sort(Sorts.Bool()), s));
     }
 
     public KApply KApply(KLabel klabel, org.kframework.kore.KList klist, Att att) {
@@ -146,7 +147,7 @@ public class KOREtoBackendKIL {
         if (att.contains(Att.TRANSITION())) {
             kItem.addAttribute(Att.TRANSITION(), "");
         }
-        return kItem;
+        return global.termInterner.intern(kItem);
     }
 
     private Optional<KLabel> getAssocKLabelForUnit(KLabel klabel) {
@@ -4,16 +4,25 @@ package org.kframework.backend.java.kil;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Lists;
-import org.apache.commons.collections4.map.UnmodifiableMap;
 import org.apache.commons.lang3.tuple.Triple;
+import org.kframework.backend.java.builtins.IntToken;
 import org.kframework.backend.java.symbolic.Transformer;
 import org.kframework.backend.java.symbolic.Visitor;
 import org.kframework.backend.java.util.Constants;
 import org.kframework.builtin.KLabels;
 import org.kframework.utils.errorsystem.KEMException;
-
+import org.pcollections.HashPMap;
+import org.pcollections.HashTreePMap;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,23 +31,38 @@ import java.util.stream.Collectors;
 
 /**
  * Class representing a map.
+ * <p>
+ * The entries are a persistent hash map, so that updating or removing a few entries of a large map, e.g. through
+ * {@link org.kframework.backend.java.builtins.BuiltinMapOperations}, shares the rest of the map instead of copying it.
+ * While every key is an {@link IntToken} that fits in a {@code long}, e.g. for memories and storage, the entries are
+ * instead a {@link LongKeyMap} indexed by the primitive values, and the generic view of {@link #getEntries()} is only
+ * built on demand.
  *
  * @author AndreiS
  */
 public class BuiltinMap extends AssociativeCommutativeCollection {
 
-    private final UnmodifiableMap<Term, Term> entries;
+    /**
+     * The entries while every key is a {@link LongKeyMap#isKey(Term) long key}, or null otherwise.
+     */
+    private final LongKeyMap longEntries;
+    /**
+     * The entries as a generic map, computed on demand from {@link #longEntries} when it is not null.
+     */
+    private transient volatile HashPMap<Term, Term> entries;
 
     /**
      * Private efficient constructor used by {@link BuiltinMap.Builder}.
      */
     private BuiltinMap(
-            UnmodifiableMap<Term, Term> entries,
+            LongKeyMap longEntries,
+            HashPMap<Term, Term> entries,
             ImmutableMultiset<KItem> collectionPatterns,
             ImmutableMultiset<Term> collectionFunctions,
             ImmutableMultiset<Variable> collectionVariables,
             GlobalContext global) {
         super(collectionPatterns, collectionFunctions, collectionVariables, global);
+        this.longEntries = longEntries;
         this.entries = entries;
     }
 
@@ -60,10 +84,19 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
     }
 
     public Term get(Term key) {
-        return entries.get(key);
+        return longEntries != null ? longEntries.get(key) : entries.get(key);
     }
 
-    public UnmodifiableMap<Term, Term> getEntries() {
+    public boolean containsKey(Term key) {
+        return get(key) != null;
+    }
+
+    public HashPMap<Term, Term> getEntries() {
+        HashPMap<Term, Term> entries = this.entries;
+        if (entries == null) {
+            entries = longEntries.toHashPMap();
+            this.entries = entries;
+        }
         return entries;
     }
 
@@ -72,12 +105,12 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
     }
 
     public boolean hasOnlyGroundKeys() {
-        return entries.keySet().stream().allMatch(Term::isGround);
+        return longEntries != null || entries.keySet().stream().allMatch(Term::isGround);
     }
 
     @Override
     public int concreteSize() {
-        return entries.size();
+        return longEntries != null ? longEntries.size() : entries.size();
     }
 
     @Override
@@ -97,7 +130,9 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
         }
 
         BuiltinMap map = (BuiltinMap) object;
-        return entries.equals(map.entries)
+        return (longEntries != null && map.longEntries != null
+                        ? longEntries.equals(map.longEntries)
+                        : getEntries().equals(map.getEntries()))
                 && collectionPatterns.equals(map.collectionPatterns)
                 && collectionFunctions.equals(map.collectionFunctions)
                 && collectionVariables.equals(map.collectionVariables);
@@ -106,7 +141,8 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
     @Override
     protected int computeHash() {
         int hashCode = 1;
-        hashCode = hashCode * Constants.HASH_PRIME + entries.hashCode();
+        hashCode = hashCode * Constants.HASH_PRIME
+                + (longEntries != null ? longEntries.mapHashCode() : entries.hashCode());
         hashCode = hashCode * Constants.HASH_PRIME + collectionPatterns.hashCode();
         hashCode = hashCode * Constants.HASH_PRIME + collectionFunctions.hashCode();
         hashCode = hashCode * Constants.HASH_PRIME + collectionVariables.hashCode();
@@ -121,7 +157,7 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
     private String toString(String operator, String mapsTo, String identity) {
         if (!isEmpty()) {
             return Joiner.on(operator).join(
-                    Joiner.on(operator).withKeyValueSeparator(mapsTo).join(entries),
+                    Joiner.on(operator).withKeyValueSeparator(mapsTo).join(getEntries()),
                     Joiner.on(operator).join(collectionPatterns),
                     Joiner.on(operator).join(collectionFunctions),
                     Joiner.on(operator).join(collectionVariables));
@@ -145,7 +181,7 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
         DataStructureSort sort = global.getDefinition().dataStructureSortOf(sort());
 
         ArrayList<Term> components = Lists.newArrayList();
-        entries.entrySet().stream().forEach(entry ->
+        getEntries().entrySet().stream().forEach(entry ->
                 components.add(KItem.of(
                         KLabelConstant.of(sort.elementLabel(), global.getDefinition()),
                         KList.concatenate(entry.getKey(), entry.getValue()),
@@ -168,7 +204,12 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
 
     public static class Builder {
 
-        private final Map<Term, Term> entries = new HashMap<>();
+        /**
+         * The entries while every key is a {@link LongKeyMap#isKey(Term) long key}, or null once
+         * {@link #entries} holds them.
+         */
+        private LongKeyMap longEntries = LongKeyMap.EMPTY;
+        private HashPMap<Term, Term> entries = null;
         private final ImmutableMultiset.Builder<KItem> patternsBuilder = new ImmutableMultiset.Builder<>();
         private final ImmutableMultiset.Builder<Term> functionsBuilder = new ImmutableMultiset.Builder<>();
         private final ImmutableMultiset.Builder<Variable> variablesBuilder = new ImmutableMultiset.Builder<>();
@@ -178,8 +219,24 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
             this.global = global;
         }
 
+        /**
+         * Switches to the generic representation of the entries, e.g. on the first key which is not a
+         * {@link LongKeyMap#isKey(Term) long key}.
+         */
+        private HashPMap<Term, Term> generic() {
+            if (entries == null) {
+                entries = longEntries.toHashPMap();
+                longEntries = null;
+            }
+            return entries;
+        }
+
         public void put(Term key, Term value) {
-            entries.put(key, value);
+            if (longEntries != null && LongKeyMap.isKey(key)) {
+                longEntries = longEntries.plus((IntToken) key, value);
+            } else {
+                entries = generic().plus(key, value);
+            }
         }
 
         /**
@@ -187,15 +244,30 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
          * built.
          */
         public void putAll(Map<? extends Term, ? extends Term> map) {
-            entries.putAll(map);
+            if (longEntries != null) {
+                map.forEach(this::put);
+            } else {
+                entries = entries.plusAll(map);
+            }
         }
 
         public Term remove(Term key) {
-            return entries.remove(key);
+            if (longEntries != null) {
+                Term value = longEntries.get(key);
+                if (value != null) {
+                    longEntries = longEntries.minus((IntToken) key);
+                }
+                return value;
+            }
+            Term value = entries.get(key);
+            if (value != null) {
+                entries = entries.minus(key);
+            }
+            return value;
         }
 
         public Map<Term, Term> getEntries() {
-            return UnmodifiableMap.unmodifiableMap(entries);
+            return Collections.unmodifiableMap(longEntries != null ? longEntries.toHashPMap() : entries);
         }
 
         private void concatenate(Term term, boolean update) {
@@ -208,13 +280,22 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
             if (term instanceof BuiltinMap) {
                 BuiltinMap map = (BuiltinMap) term;
 
-                if (!update && entries.keySet().stream().anyMatch(key -> map.entries.containsKey(key) && !entries.get(key).equals(map.entries.get(key)))) {
-                    List<Triple<Term, Term, Term>> clashingKeys = entries.keySet().stream().filter(map.entries::containsKey).map(k -> Triple.of(k, entries.get(k), map.entries.get(k))).collect(Collectors.toList());
+                if (!update && !agreesWith(map)) {
+                    Map<Term, Term> entries = getEntries();
+                    List<Triple<Term, Term, Term>> clashingKeys = entries.keySet().stream().filter(map::containsKey).map(k -> Triple.of(k, entries.get(k), map.get(k))).collect(Collectors.toList());
                     throw KEMException.criticalError("failed to concatenate maps with common keys: "
                             + clashingKeys);
                 }
 
-                entries.putAll(map.entries);
+                if (longEntries != null && longEntries.isEmpty()) {
+                    // share the entries of the first map instead of copying them
+                    longEntries = map.longEntries;
+                    entries = map.longEntries != null ? null : map.entries;
+                } else if (longEntries != null && map.longEntries != null) {
+                    longEntries = longEntries.plusAll(map.longEntries);
+                } else {
+                    entries = generic().isEmpty() ? map.getEntries() : entries.plusAll(map.getEntries());
+                }
                 patternsBuilder.addAll(map.collectionPatterns);
                 functionsBuilder.addAll(map.collectionFunctions);
                 variablesBuilder.addAll(map.collectionVariables);
@@ -256,13 +337,24 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
             }
         }
 
+        /**
+         * @return true if no key of this builder is mapped to a different value in the given map.
+         */
+        private boolean agreesWith(BuiltinMap map) {
+            if (longEntries != null && map.longEntries != null) {
+                return longEntries.agreesWith(map.longEntries);
+            }
+            Map<Term, Term> entries = longEntries != null ? longEntries.toHashPMap() : this.entries;
+            return entries.entrySet().stream().allMatch(entry -> {
+                Term value = map.get(entry.getKey());
+                return value == null || value.equals(entry.getValue());
+            });
+        }
+
         public Term build() {
-            // YilongL: Guava's ImmutableMap.copyOf(entries) is not smart enough
-            // to avoid actually copying the entries, because entries is not an
-            // ImmutableMap yet; using Apache's decorate method because it would
-            // avoid creating nesting wrappers
             BuiltinMap builtinMap = new BuiltinMap(
-                    (UnmodifiableMap<Term, Term>) UnmodifiableMap.unmodifiableMap(entries),
+                    longEntries,
+                    entries,
                     patternsBuilder.build(),
                     functionsBuilder.build(),
                     variablesBuilder.build(),
@@ -271,4 +363,33 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
                     builtinMap.baseTerms().iterator().next() : builtinMap;
         }
     }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.writeObject(new HashMap<>(getEntries()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        try {
+            Map<Term, Term> map = (Map<Term, Term>) in.readObject();
+            Field longEntriesField = BuiltinMap.class.getDeclaredField("longEntries");
+            longEntriesField.setAccessible(true);
+            if (map.keySet().stream().allMatch(LongKeyMap::isKey)) {
+                LongKeyMap longEntries = LongKeyMap.EMPTY;
+                for (Map.Entry<Term, Term> entry : map.entrySet()) {
+                    longEntries = longEntries.plus((IntToken) entry.getKey(), entry.getValue());
+                }
+                longEntriesField.set(this, longEntries);
+            } else {
+                longEntriesField.set(this, null);
+                entries = HashTreePMap.from(map);
+            }
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void readObjectNoData() throws ObjectStreamException {
+        throw new InvalidObjectException("Stream data required");
+    }
 }
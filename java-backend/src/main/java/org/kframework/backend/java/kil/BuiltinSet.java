@@ -3,13 +3,20 @@ package org.kframework.backend.java.kil;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMultiset;
-import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import org.kframework.backend.java.symbolic.Transformer;
 import org.kframework.backend.java.symbolic.Visitor;
 import org.kframework.backend.java.util.Constants;
 import org.kframework.utils.errorsystem.KEMException;
-
+import org.pcollections.HashTreePSet;
+import org.pcollections.MapPSet;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -19,15 +26,18 @@ import java.util.Set;
 
 /**
  * Class representing a set.
+ * <p>
+ * The elements are a persistent hash set, shared between sets that differ in a few elements, like the entries of
+ * {@link BuiltinMap}.
  *
  * @author AndreiS
  */
 public class BuiltinSet extends AssociativeCommutativeCollection {
 
-    private final ImmutableSet<Term> elements;
+    private final MapPSet<Term> elements;
 
     private BuiltinSet(
-            ImmutableSet<Term> elements,
+            MapPSet<Term> elements,
             ImmutableMultiset<KItem> collectionPatterns,
             ImmutableMultiset<Term> collectionFunctions,
             ImmutableMultiset<Variable> collectionVariables,
@@ -156,7 +166,7 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
 
     public static class Builder {
 
-        private final Set<Term> elements = new HashSet<>();
+        private MapPSet<Term> elements = HashTreePSet.empty();
         private final ImmutableMultiset.Builder<KItem> patternsBuilder = new ImmutableMultiset.Builder<>();
         private final ImmutableMultiset.Builder<Term> functionsBuilder = new ImmutableMultiset.Builder<>();
         private final ImmutableMultiset.Builder<Variable> variablesBuilder = new ImmutableMultiset.Builder<>();
@@ -167,16 +177,26 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
         }
 
         public boolean add(Term element) {
-            return elements.add(element);
+            if (elements.contains(element)) {
+                return false;
+            }
+            elements = elements.plus(element);
+            return true;
         }
 
         public <T extends Term> boolean addAll(Collection<T> elements) {
             // elements refers to the one in the outer class
-            return this.elements.addAll(elements);
+            int size = this.elements.size();
+            this.elements = this.elements.plusAll(elements);
+            return this.elements.size() != size;
         }
 
         public boolean remove(Term element) {
-            return elements.remove(element);
+            if (!elements.contains(element)) {
+                return false;
+            }
+            elements = elements.minus(element);
+            return true;
         }
 
         /**
@@ -192,7 +212,8 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
 
                 if (term instanceof BuiltinSet) {
                     BuiltinSet set = (BuiltinSet) term;
-                    elements.addAll(set.elements);
+                    // share the elements of the first set instead of copying them
+                    elements = elements.isEmpty() ? set.elements : elements.plusAll(set.elements);
                     patternsBuilder.addAll(set.collectionPatterns);
                     functionsBuilder.addAll(set.collectionFunctions);
                     variablesBuilder.addAll(set.collectionVariables);
@@ -210,7 +231,7 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
 
         public Term build() {
             BuiltinSet builtinSet = new BuiltinSet(
-                    ImmutableSet.copyOf(elements),
+                    elements,
                     patternsBuilder.build(),
                     functionsBuilder.build(),
                     variablesBuilder.build(),
@@ -221,4 +242,22 @@ public class BuiltinSet extends AssociativeCommutativeCollection {
         }
     }
 
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.writeObject(new HashSet<>(elements));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        try {
+            Field elementsField = BuiltinSet.class.getDeclaredField("elements");
+            elementsField.setAccessible(true);
+            elementsField.set(this, HashTreePSet.from((Set<Term>) in.readObject()));
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void readObjectNoData() throws ObjectStreamException {
+        throw new InvalidObjectException("Stream data required");
+    }
 }
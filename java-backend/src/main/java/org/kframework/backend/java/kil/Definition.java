@@ -109,7 +109,9 @@ public class Definition extends JavaSymbolicObject {
 
     public final Map<Integer, Integer> reverseRuleTable = new HashMap<>();
 
-    private final Map<KItem.CacheTableColKey, KItem.CacheTableValue> sortCacheTable = new HashMap<>();
+    private transient volatile RuleIndex ruleIndex;
+
+    private transient volatile SortCache sortCache;
 
     public Definition(org.kframework.definition.Module module, KExceptionManager kem) {
         this.kem = kem;
@@ -378,16 +380,26 @@ public class Definition extends JavaSymbolicObject {
         throw new UnsupportedOperationException();
     }
 
-    public KItem.CacheTableValue getSortCacheValue(KItem.CacheTableColKey key) {
-        synchronized (sortCacheTable) {
-            return sortCacheTable.get(key);
-        }
+    public KItem.CacheTableValue getSortCacheValue(KLabelConstant kLabel, KList kList) {
+        return sortCache().get(kLabel, kList);
+    }
+
+    public void putSortCacheValue(KLabelConstant kLabel, KList kList, KItem.CacheTableValue value) {
+        sortCache().put(kLabel, kList, value);
     }
 
-    public void putSortCacheValue(KItem.CacheTableColKey key, KItem.CacheTableValue value) {
-        synchronized (sortCacheTable) {
-            sortCacheTable.put(key, value);
+    private SortCache sortCache() {
+        SortCache cache = sortCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = sortCache;
+                if (cache == null) {
+                    cache = new SortCache(4 * kLabels.size());
+                    sortCache = cache;
+                }
+            }
         }
+        return cache;
     }
 
     // added from context
@@ -423,6 +435,23 @@ public class Definition extends JavaSymbolicObject {
         return definitionData;
     }
 
+    /**
+     * @return the index of {@link #ruleTable}, built on first use and rebuilt if rules were added since.
+     */
+    public RuleIndex ruleIndex() {
+        RuleIndex index = ruleIndex;
+        if (index == null || index.ruleCount() != ruleTable.size()) {
+            synchronized (this) {
+                index = ruleIndex;
+                if (index == null || index.ruleCount() != ruleTable.size()) {
+                    index = new RuleIndex(this, ruleTable);
+                    ruleIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
     public Rule mainAutomaton() {
         return automatons.get(JavaBackend.MAIN_AUTOMATON);
     }
@@ -1,27 +1,101 @@
 package org.kframework.backend.java.kil;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
 import org.kframework.backend.java.symbolic.ConjunctiveFormula;
-
-import java.util.HashMap;
-import java.util.Map;
+import org.kframework.backend.java.util.CacheStats;
 
 /**
+ * Concurrent cache of function evaluation results, so that terms may be evaluated from several threads at once.
+ * <p>
+ * Entries evaluated without a constraint are keyed by the term alone, the others by the (term, constraint) pair.
+ * When a maximum number of entries is given, least recently used entries are evicted once it is reached.
+ *
  * @author Denis Bogdanas
  * Created on 29-Jan-19.
  */
 public class FunctionCache {
 
-    final Table<JavaSymbolicObject<?>, ConjunctiveFormula, Term> evaluationCache = HashBasedTable.create();
-    final Map<JavaSymbolicObject<?>, Term> nullConstraintEvalCache = new HashMap<>();
+    public final CacheStats stats = new CacheStats("Function cache");
+    private final Cache<Object, Term> cache;
+
+    public FunctionCache() {
+        this(0);
+    }
+
+    /**
+     * @param maxEntries maximum number of cached results, 0 for unbounded.
+     */
+    public FunctionCache(long maxEntries) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors());
+        if (maxEntries > 0) {
+            builder = builder.maximumSize(maxEntries);
+        }
+        cache = builder
+                .removalListener((RemovalListener<Object, Term>) notification -> {
+                    if (notification.wasEvicted()) {
+                        stats.evict();
+                    }
+                })
+                .build();
+    }
+
+    Term get(Term term, ConjunctiveFormula constraint) {
+        Term result = cache.getIfPresent(key(term, constraint));
+        if (result != null) {
+            stats.hit();
+        } else {
+            stats.miss();
+        }
+        return result;
+    }
+
+    void put(Term term, ConjunctiveFormula constraint, Term result) {
+        cache.put(key(term, constraint), result);
+        stats.store();
+    }
+
+    private static Object key(Term term, ConjunctiveFormula constraint) {
+        return constraint == null ? term : new ConstrainedKey(term, constraint);
+    }
 
     public void clear() {
-        evaluationCache.clear();
-        nullConstraintEvalCache.clear();
+        cache.invalidateAll();
+        cache.cleanUp();
     }
 
     public int size() {
-        return evaluationCache.size() + nullConstraintEvalCache.size();
+        return (int) cache.size();
+    }
+
+    private static final class ConstrainedKey {
+        private final Term term;
+        private final ConjunctiveFormula constraint;
+        private final int hashCode;
+
+        ConstrainedKey(Term term, ConjunctiveFormula constraint) {
+            this.term = term;
+            this.constraint = constraint;
+            this.hashCode = 31 * term.hashCode() + constraint.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ConstrainedKey)) {
+                return false;
+            }
+            ConstrainedKey other = (ConstrainedKey) o;
+            return hashCode == other.hashCode && term.equals(other.term) && constraint.equals(other.constraint);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
     }
 }
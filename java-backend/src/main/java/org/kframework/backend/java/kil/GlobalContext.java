@@ -6,6 +6,7 @@ import org.kframework.backend.java.kil.KItem.KItemOperations;
 import org.kframework.backend.java.symbolic.BuiltinFunction;
 import org.kframework.backend.java.symbolic.Equality.EqualityOperations;
 import org.kframework.backend.java.symbolic.JavaExecutionOptions;
+import org.kframework.backend.java.symbolic.SMTLibTranslationCache;
 import org.kframework.backend.java.symbolic.SMTOperations;
 import org.kframework.backend.java.symbolic.Stage;
 import org.kframework.backend.java.util.FormulaSimplificationCache;
@@ -24,12 +25,15 @@ import org.kframework.utils.errorsystem.KExceptionManager;
 import org.kframework.utils.file.FileUtil;
 import org.kframework.utils.options.SMTOptions;
 
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.lang.invoke.MethodHandle;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Formatter;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class GlobalContext implements Serializable {
     private Definition def;
@@ -48,8 +52,10 @@ public class GlobalContext implements Serializable {
     public final transient Profiler2 profiler;
     public final StateLog stateLog;
     public final PrettyPrinter prettyPrinter;
-    public final transient FunctionCache functionCache = new FunctionCache();
-    public final transient FormulaSimplificationCache formulaCache = new FormulaSimplificationCache();
+    public final transient FunctionCache functionCache;
+    public final transient TermInterner termInterner;
+    public final transient FormulaSimplificationCache formulaCache;
+    public final transient SMTLibTranslationCache smtlibCache = new SMTLibTranslationCache();
     public final transient ToStringCache toStringCache = new ToStringCache();
 
     private boolean isExecutionPhase = true;
@@ -80,6 +86,9 @@ public class GlobalContext implements Serializable {
         this.kem = kem;
         this.hookProvider = hookProvider;
         this.files = files;
+        this.functionCache = new FunctionCache(javaExecutionOptions.cacheFunctionsMaxEntries);
+        this.termInterner = new TermInterner(javaExecutionOptions.internTerms);
+        this.formulaCache = new FormulaSimplificationCache(javaExecutionOptions.cacheFormulasMaxEntries);
         this.equalityOps = new EqualityOperations(() -> def);
         prettyPrinter = new PrettyPrinter(kprint, coreDefinition);
         this.stateLog = new StateLog(javaExecutionOptions, files, prettyPrinter);
@@ -102,6 +111,39 @@ public class GlobalContext implements Serializable {
         return b;
     }
 
+    /**
+     * The context that deserialized terms are attached to, see {@link #deserialize(Supplier)}.
+     */
+    private static final ThreadLocal<GlobalContext> deserializationContext = new ThreadLocal<>();
+
+    /**
+     * Runs the given deserializer, attaching the terms it reads to this context. The context of a term is not
+     * serialized, since most of its state is transient, and is only valid in the process that created it.
+     */
+    public <T> T deserialize(Supplier<T> deserializer) {
+        GlobalContext previous = deserializationContext.get();
+        deserializationContext.set(this);
+        try {
+            return deserializer.get();
+        } finally {
+            deserializationContext.set(previous);
+        }
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return new SerializedGlobalContext();
+    }
+
+    private static final class SerializedGlobalContext implements Serializable {
+        private Object readResolve() throws ObjectStreamException {
+            GlobalContext context = deserializationContext.get();
+            if (context == null) {
+                throw new InvalidObjectException("Terms must be deserialized through GlobalContext.deserialize");
+            }
+            return context;
+        }
+    }
+
     public void setDefinition(Definition def) {
         this.def = def;
     }
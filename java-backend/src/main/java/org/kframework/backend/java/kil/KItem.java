@@ -19,7 +19,6 @@ import org.kframework.backend.java.util.Constants;
 import org.kframework.backend.java.util.FormulaContext;
 import org.kframework.backend.java.util.ImpureFunctionException;
 import org.kframework.backend.java.util.Profiler;
-import org.kframework.backend.java.util.Profiler2;
 import org.kframework.backend.java.util.RewriteEngineUtils;
 import org.kframework.backend.java.util.RuleSourceUtil;
 import org.kframework.backend.java.util.Subsorts;
@@ -32,7 +31,6 @@ import org.kframework.utils.errorsystem.KExceptionManager;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -82,9 +80,13 @@ public class KItem extends Term implements KItemRepresentation {
     private Boolean anywhereApplicable = null;
 
     private BitSet[] childrenDontCareRuleMask = null;
-    private final Profiler2 profiler;
     private boolean evaluatedRecursively = false;
 
+    /**
+     * The table this term is the shared instance of, if any. See {@link TermInterner}.
+     */
+    transient TermInterner interner;
+
     public static KItem of(Term kLabel, Term kList, GlobalContext global) {
         return of(kLabel, kList, global, Att.empty(), null);
     }
@@ -122,7 +124,6 @@ public class KItem extends Term implements KItemRepresentation {
         this.isExactSort = isExactSort;
         this.possibleSorts = possibleSorts;
         this.global = global;
-        this.profiler = global.profiler;
         this.enableCache = false;
     }
 
@@ -131,7 +132,6 @@ public class KItem extends Term implements KItemRepresentation {
         this.kLabel = kLabel;
         this.kList = kList;
         this.global = global;
-        this.profiler = global.profiler;
 
         Definition definition = global.getDefinition();
         this.childrenDontCareRuleMask = childrenDonCareRuleMask;
@@ -179,8 +179,7 @@ public class KItem extends Term implements KItemRepresentation {
 
         Definition definition = global.getDefinition();
         if (enableCache) {
-            CacheTableColKey cacheTabColKey = new CacheTableColKey((KLabelConstant) kLabel, (KList) kList);
-            CacheTableValue cacheTabVal = definition.getSortCacheValue(cacheTabColKey);
+            CacheTableValue cacheTabVal = definition.getSortCacheValue((KLabelConstant) kLabel, (KList) kList);
             if (cacheTabVal != null) {
                 sort = cacheTabVal.sort;
                 isExactSort = cacheTabVal.isExactSort;
@@ -285,7 +284,7 @@ public class KItem extends Term implements KItemRepresentation {
         CacheTableValue cacheTabVal = new CacheTableValue(sort, isExactSort, possibleSorts);
 
         if (enableCache) {
-            definition.putSortCacheValue(new CacheTableColKey(kLabelConstant, kList), cacheTabVal);
+            definition.putSortCacheValue(kLabelConstant, kList, cacheTabVal);
         }
     }
 
@@ -294,7 +293,7 @@ public class KItem extends Term implements KItemRepresentation {
     }
 
     public Term resolveFunctionAndAnywhere(TermContext context) {
-        profiler.resFuncNanoTimer.start();
+        global.profiler.resFuncNanoTimer.start();
         Term result;
         try {
             if (global.javaExecutionOptions.cacheFunctions) {
@@ -313,7 +312,7 @@ public class KItem extends Term implements KItemRepresentation {
                 result = global.kItemOps.resolveFunctionAndAnywhere(this, context);
             }
         } finally {
-            profiler.resFuncNanoTimer.stop();
+            global.profiler.resFuncNanoTimer.stop();
         }
         return result;
     }
@@ -328,6 +327,10 @@ public class KItem extends Term implements KItemRepresentation {
      * @return the rules for which position i only matches "don't care" variables (i.e., variables that do not appear
      * in the RHS or conditions)
      */
+    boolean hasChildrenDontCareRuleMask() {
+        return childrenDontCareRuleMask != null;
+    }
+
     public BitSet getChildrenDontCareRuleMaskForPosition(int i) {
         if (childrenDontCareRuleMask != null)
             return childrenDontCareRuleMask[i];
@@ -428,10 +431,10 @@ public class KItem extends Term implements KItemRepresentation {
          * @return the evaluated result on success, or this {@code KItem} otherwise
          */
         private Term evaluateFunction(KItem kItem, TermContext context) {
-            kItem.profiler.evaluateFunctionNanoTimer.start();
+            kItem.global.profiler.evaluateFunctionNanoTimer.start();
             KLabelConstant kLabelConstant = (KLabelConstant) kItem.kLabel;
             Profiler.startTimer(Profiler.getTimerForFunction(kLabelConstant));
-            int nestingLevel = kItem.profiler.evaluateFunctionNanoTimer.getLevel();
+            int nestingLevel = kItem.global.profiler.evaluateFunctionNanoTimer.getLevel();
             kItem.global.newLogIndent(nestingLevel - 1);
 
             try {
@@ -444,7 +447,7 @@ public class KItem extends Term implements KItemRepresentation {
                         if (result != null && !result.equals(kItem)) {
                             Term evalResult = result.evaluate(context);
                             KItemLog.logBuiltinEval(kLabelConstant, nestingLevel, kItem.global);
-                            kItem.profiler.evalFuncBuiltinCounter.increment();
+                            kItem.global.profiler.evalFuncBuiltinCounter.increment();
                             return evalResult;
                         }
                     } catch (ClassCastException e) {
@@ -476,7 +479,7 @@ public class KItem extends Term implements KItemRepresentation {
                 if (kLabelConstant.isSortPredicate() && kList.getContents().size() == 1) {
                     Term checkResult = SortMembership.check(kItem, definition);
                     if (checkResult != kItem) {
-                        kItem.profiler.evalFuncSortPredicateCounter.increment();
+                        kItem.global.profiler.evalFuncSortPredicateCounter.increment();
                         return checkResult;
                     }
                 }
@@ -531,10 +534,12 @@ public class KItem extends Term implements KItemRepresentation {
                                     hasFreshVars = true;
                                 }
                             }
-                            Term rightHandSide = RewriteEngineUtils.construct(
-                                    rule.rhsInstructions(),
-                                    solution,
-                                    context);
+                            Term rightHandSide = kItem.global.javaExecutionOptions.compileRHS
+                                                 ? rule.compiledRHS().construct(solution, context)
+                                                 : RewriteEngineUtils.construct(
+                                                         rule.rhsInstructions(),
+                                                         solution,
+                                                         context);
                             if (rightHandSide != null && hasFreshVars) {
                                 //rule creates fresh vars, therefore result is not cacheable
                                 rightHandSide.isCacheable = false;
@@ -599,23 +604,23 @@ public class KItem extends Term implements KItemRepresentation {
 
                     if (result != null) {
                         KItemLog.logEvaluated(kItem, result, nestingLevel);
-                        kItem.profiler.evalFuncRuleCounter.increment();
+                        kItem.global.profiler.evalFuncRuleCounter.increment();
                         return result;
                     } else if (owiseResult != null && owiseApplicable(kItem, context, rulesForKLabel)) {
                         KItemLog.logEvaluatedOwise(kItem, owiseResult, nestingLevel);
-                        kItem.profiler.evalFuncOwiseCounter.increment();
+                        kItem.global.profiler.evalFuncOwiseCounter.increment();
                         return owiseResult;
                     }
                     KItemLog.logNoRuleApplicable(kItem, nestingLevel);
-                    kItem.profiler.evalFuncNoRuleApplicableCounter.increment();
+                    kItem.global.profiler.evalFuncNoRuleApplicableCounter.increment();
                 } else {
-                    kItem.profiler.evalFuncNoRuleCounter.increment();
+                    kItem.global.profiler.evalFuncNoRuleCounter.increment();
                 }
                 return kItem;
             } finally {
                 kItem.global.restorePreviousLogIndent();
                 Profiler.stopTimer(Profiler.getTimerForFunction(kLabelConstant));
-                kItem.profiler.evaluateFunctionNanoTimer.stop();
+                kItem.global.profiler.evaluateFunctionNanoTimer.stop();
             }
         }
 
@@ -695,7 +700,7 @@ public class KItem extends Term implements KItemRepresentation {
      * @return the result on success, or this {@code KItem} otherwise
      */
     private Term applyAnywhereRules(TermContext context) {
-        profiler.applyAnywhereRulesNanoTimer.start();
+        global.profiler.applyAnywhereRulesNanoTimer.start();
         try {
             // apply a .K ~> K => K normalization
             if ((kLabel instanceof KLabelConstant) && KLabels.KSEQ.equals(kLabel)
@@ -703,12 +708,12 @@ public class KItem extends Term implements KItemRepresentation {
                     && (((KList) kList).get(0) instanceof KItem &&
                     KLabels.DOTK.equals(((KItem) ((KList) kList).get(0)).kLabel) ||
                     ((KList) kList).get(0).equals(KSequence.EMPTY))) {
-                profiler.applyAnywhereBuiltinCounter.increment();
+                global.profiler.applyAnywhereBuiltinCounter.increment();
                 return ((KList) kList).get(1);
             }
 
             if (!isAnywhereApplicable(context)) {
-                profiler.applyAnywhereNoRuleCounter.increment();
+                global.profiler.applyAnywhereNoRuleCounter.increment();
                 return this;
             }
 
@@ -728,7 +733,7 @@ public class KItem extends Term implements KItemRepresentation {
                     /* anywhere rules should be applied by pattern match rather than unification */
                     Map<Variable, Term> solution;
                     List<Substitution<Variable, Term>> matches = PatternMatcher.match(this, rule, context,
-                            "KItem anywhere", profiler.applyAnywhereRulesNanoTimer.getLevel());
+                            "KItem anywhere", global.profiler.applyAnywhereRulesNanoTimer.getLevel());
                     if (matches.isEmpty()) {
                         continue;
                     } else {
@@ -740,9 +745,9 @@ public class KItem extends Term implements KItemRepresentation {
                     Term rightHandSide = rule.rightHandSide();
                     rightHandSide = rightHandSide.substituteAndEvaluate(solution, context);
 
-                    KItemLog.logAnywhereRule(kLabelConstant, profiler.applyAnywhereRulesNanoTimer.getLevel(),
+                    KItemLog.logAnywhereRule(kLabelConstant, global.profiler.applyAnywhereRulesNanoTimer.getLevel(),
                             rule, global);
-                    profiler.applyAnywhereRuleCounter.increment();
+                    global.profiler.applyAnywhereRuleCounter.increment();
                     return rightHandSide;
                 } finally {
                     if (RuleAuditing.isAuditBegun()) {
@@ -756,10 +761,10 @@ public class KItem extends Term implements KItemRepresentation {
                     }
                 }
             }
-            profiler.applyAnywhereNoRuleApplicableCounter.increment();
+            global.profiler.applyAnywhereNoRuleApplicableCounter.increment();
             return this;
         } finally {
-            profiler.applyAnywhereRulesNanoTimer.stop();
+            global.profiler.applyAnywhereRulesNanoTimer.stop();
         }
     }
 
@@ -829,6 +834,9 @@ public class KItem extends Term implements KItemRepresentation {
         }
 
         KItem kItem = (KItem) object;
+        if (interner != null && interner == kItem.interner) {
+            return false;
+        }
         return kLabel.equals(kItem.kLabel) && kList.equals(kItem.kList);
     }
 
@@ -880,62 +888,6 @@ public class KItem extends Term implements KItemRepresentation {
         return ((KList) kList).getContents().subList(inputCount, ((KList) kList).getContents().size());
     }
 
-    /**
-     * The sort information of this {@code KItem}, namely {@link KItem#sort} and
-     * {@link KItem#isExactSort}, depends only on the {@code KLabelConstant} and
-     * the sorts of its children.
-     */
-    static final class CacheTableColKey {
-
-        final KLabelConstant kLabelConstant;
-        final Sort[] sorts;
-        final boolean[] bools;
-        final int hashCode;
-
-        public CacheTableColKey(KLabelConstant kLabelConstant, KList kList) {
-            this.kLabelConstant = kLabelConstant;
-            sorts = new Sort[kList.concreteSize()];
-            bools = new boolean[kList.concreteSize()];
-            int idx = 0;
-            for (Term term : kList) {
-                if (term instanceof KItem) {
-                    KItem kItem = (KItem) term;
-                    if (kItem.kLabel instanceof KLabelInjection) {
-                        term = ((KLabelInjection) kItem.kLabel).term();
-                    }
-                }
-                sorts[idx] = term.sort();
-                bools[idx] = term.isExactSort();
-                idx++;
-            }
-            hashCode = computeHash();
-        }
-
-        private int computeHash() {
-            int hashCode = 1;
-            hashCode = hashCode * Constants.HASH_PRIME + kLabelConstant.hashCode();
-            hashCode = hashCode * Constants.HASH_PRIME + Arrays.deepHashCode(sorts);
-            hashCode = hashCode * Constants.HASH_PRIME + Arrays.hashCode(bools);
-            return hashCode;
-        }
-
-        @Override
-        public int hashCode() {
-            return hashCode;
-        }
-
-        @Override
-        public boolean equals(Object object) {
-            if (!(object instanceof CacheTableColKey)) {
-                return false;
-            }
-            CacheTableColKey key = (CacheTableColKey) object;
-            return kLabelConstant.equals(key.kLabelConstant)
-                    && Arrays.deepEquals(sorts, key.sorts)
-                    && Arrays.equals(bools, key.bools);
-        }
-    }
-
     /**
      * When serializing a KItem, compute its sort so that we don't end up serializing the TermContext
      *
@@ -11,6 +11,7 @@ import org.kframework.utils.errorsystem.KEMException;
 import scala.collection.Seq;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -36,6 +37,12 @@ public class KLabelConstant extends KLabel implements org.kframework.kore.KLabel
      */
     public static final AtomicInteger maxOrdinal = new AtomicInteger(0);
 
+    /**
+     * The labels of this process by ordinal. Guards the creation of labels, so that a deserialized label cannot take
+     * the ordinal of another label.
+     */
+    private static final Map<Integer, KLabelConstant> ordinals = new HashMap<>();
+
     /* un-escaped label */
     private final String label;
     private final Seq<org.kframework.kore.Sort> params;
@@ -124,14 +131,26 @@ public class KLabelConstant extends KLabel implements org.kframework.kore.KLabel
      * @return AST term representation the the KLabel;
      */
     public static KLabelConstant of(org.kframework.kore.KLabel label, Definition definition) {
-        return cache.computeIfAbsent(Pair.of(definition.signaturesOf(label.name()), definition.kLabelAttributesOf(label)), p -> new ConcurrentHashMap<>())
-                .computeIfAbsent(label.toString(), l -> new KLabelConstant(
+        ConcurrentMap<String, KLabelConstant> localCache = cache.computeIfAbsent(
+                Pair.of(definition.signaturesOf(label.name()), definition.kLabelAttributesOf(label)),
+                p -> new ConcurrentHashMap<>());
+        KLabelConstant cached = localCache.get(label.toString());
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (ordinals) {
+            return localCache.computeIfAbsent(label.toString(), l -> {
+                KLabelConstant kLabel = new KLabelConstant(
                         label.name(),
                         label.params(),
                         maxOrdinal.getAndIncrement(),
                         definition.signaturesOf(label.name()),
                         definition.allSorts(),
-                        definition.kLabelAttributesOf(label)));
+                        definition.kLabelAttributesOf(label));
+                ordinals.put(kLabel.ordinal, kLabel);
+                return kLabel;
+            });
+        }
     }
 
     /*
@@ -271,17 +290,33 @@ public class KLabelConstant extends KLabel implements org.kframework.kore.KLabel
     /**
      * Returns the cached instance rather than the de-serialized instance if there is a cached
      * instance.
+     *
+     * @throws KEMException if the ordinal of the de-serialized label belongs to another label in this process.
      */
     private Object readResolve() {
-        Map<String, KLabelConstant> localCache = cache.computeIfAbsent(
-                Pair.of(signatures, productionAttributes),
-                p -> new ConcurrentHashMap<>());
-        if (localCache.containsKey(label) && localCache.get(label).ordinal != this.ordinal) {
-            throw KEMException.criticalError("The ordinal for klabel: " + label + " is " + localCache.get(label).ordinal +
-                    " in the cache and " + this.ordinal + " serialized.");
+        synchronized (ordinals) {
+            Map<String, KLabelConstant> localCache = cache.computeIfAbsent(
+                    Pair.of(signatures, productionAttributes),
+                    p -> new ConcurrentHashMap<>());
+            KLabelConstant cached = localCache.get(label);
+            if (cached != null) {
+                if (cached.ordinal != this.ordinal) {
+                    throw KEMException.criticalError("The ordinal for klabel: " + label + " is " + cached.ordinal +
+                            " in the cache and " + this.ordinal + " serialized.");
+                }
+                return cached;
+            }
+            KLabelConstant owner = ordinals.get(ordinal);
+            if (owner != null) {
+                throw KEMException.criticalError("The ordinal " + ordinal + " of serialized klabel: " + label +
+                        " belongs to klabel: " + owner.label + " in the cache.");
+            }
+            // ordinals of objects created after deserialization must not overlap with the deserialized ones
+            maxOrdinal.accumulateAndGet(ordinal + 1, Math::max);
+            ordinals.put(ordinal, this);
+            localCache.put(label, this);
+            return this;
         }
-        // TODO: fix bug: ordinals from deserialized objects may overlap with those of newly created objects
-        return localCache.computeIfAbsent(label, l -> this);
     }
 
     public String getAttr(String attribute) {
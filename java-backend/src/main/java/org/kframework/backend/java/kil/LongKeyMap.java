@@ -0,0 +1,185 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import org.kframework.backend.java.builtins.IntToken;
+import org.pcollections.HashPMap;
+import org.pcollections.HashTreePMap;
+import org.pcollections.IntTreePMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Persistent map from concrete integer keys that fit in a {@code long} to terms, used by {@link BuiltinMap} while all
+ * its keys are such {@link IntToken}s.
+ * <p>
+ * A key is split into its high and low 32 bits, each level being an {@link IntTreePMap}, so that lookups and updates
+ * compare primitive ints instead of hashing and comparing {@link IntToken}s, and updates share the rest of the map.
+ * Keys are not stored; they are recreated by {@link IntToken#of(long)} when the entries are iterated.
+ */
+final class LongKeyMap {
+
+    static final LongKeyMap EMPTY = new LongKeyMap(IntTreePMap.empty(), 0);
+
+    private final IntTreePMap<IntTreePMap<Term>> entries;
+    private final int size;
+
+    private LongKeyMap(IntTreePMap<IntTreePMap<Term>> entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * @return true if the term can be a key of this map.
+     */
+    static boolean isKey(Term term) {
+        return term instanceof IntToken && ((IntToken) term).isLong();
+    }
+
+    private static int high(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int low(long key) {
+        return (int) key;
+    }
+
+    private static long key(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the value of the key, or null if the key is not in the map or cannot be a key of this map.
+     */
+    Term get(Term key) {
+        return isKey(key) ? get(((IntToken) key).longValue()) : null;
+    }
+
+    Term get(long key) {
+        IntTreePMap<Term> bucket = entries.get(high(key));
+        return bucket != null ? bucket.get(low(key)) : null;
+    }
+
+    LongKeyMap plus(IntToken key, Term value) {
+        long longKey = key.longValue();
+        IntTreePMap<Term> bucket = entries.get(high(longKey));
+        if (bucket == null) {
+            bucket = IntTreePMap.empty();
+        }
+        int newSize = bucket.containsKey(low(longKey)) ? size : size + 1;
+        return new LongKeyMap(entries.plus(high(longKey), bucket.plus(low(longKey), value)), newSize);
+    }
+
+    /**
+     * @return this map with the entries of the given map added, replacing the values of common keys.
+     */
+    LongKeyMap plusAll(LongKeyMap map) {
+        if (isEmpty()) {
+            return map;
+        }
+        LongKeyMap result = this;
+        for (Map.Entry<Integer, IntTreePMap<Term>> bucket : map.entries.entrySet()) {
+            IntTreePMap<Term> resultBucket = result.entries.get(bucket.getKey());
+            if (resultBucket == null) {
+                result = new LongKeyMap(result.entries.plus(bucket.getKey(), bucket.getValue()),
+                        result.size + bucket.getValue().size());
+            } else {
+                int oldSize = resultBucket.size();
+                resultBucket = resultBucket.plusAll(bucket.getValue());
+                result = new LongKeyMap(result.entries.plus(bucket.getKey(), resultBucket),
+                        result.size + resultBucket.size() - oldSize);
+            }
+        }
+        return result;
+    }
+
+    LongKeyMap minus(IntToken key) {
+        long longKey = key.longValue();
+        IntTreePMap<Term> bucket = entries.get(high(longKey));
+        if (bucket == null || !bucket.containsKey(low(longKey))) {
+            return this;
+        }
+        bucket = bucket.minus(low(longKey));
+        return new LongKeyMap(
+                bucket.isEmpty() ? entries.minus(high(longKey)) : entries.plus(high(longKey), bucket),
+                size - 1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return true if no key of this map is mapped to a different value in the given map.
+     */
+    boolean agreesWith(LongKeyMap map) {
+        if (map.size < size) {
+            return map.agreesWith(this);
+        }
+        for (Map.Entry<Integer, IntTreePMap<Term>> bucket : entries.entrySet()) {
+            IntTreePMap<Term> otherBucket = map.entries.get(bucket.getKey());
+            if (otherBucket == null) {
+                continue;
+            }
+            for (Map.Entry<Integer, Term> entry : bucket.getValue().entrySet()) {
+                Term otherValue = otherBucket.get(entry.getKey());
+                if (otherValue != null && !otherValue.equals(entry.getValue())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    void forEach(BiConsumer<IntToken, Term> action) {
+        for (Map.Entry<Integer, IntTreePMap<Term>> bucket : entries.entrySet()) {
+            for (Map.Entry<Integer, Term> entry : bucket.getValue().entrySet()) {
+                action.accept(IntToken.of(key(bucket.getKey(), entry.getKey())), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return the entries as a generic map, the representation of {@link BuiltinMap} for arbitrary keys.
+     */
+    HashPMap<Term, Term> toHashPMap() {
+        Map<Term, Term> map = new HashMap<>();
+        forEach(map::put);
+        return HashTreePMap.from(map);
+    }
+
+    /**
+     * @return the hash code of the entries as a {@link Map}, as in {@link Map#hashCode()}.
+     */
+    int mapHashCode() {
+        int hashCode = 0;
+        for (Map.Entry<Integer, IntTreePMap<Term>> bucket : entries.entrySet()) {
+            for (Map.Entry<Integer, Term> entry : bucket.getValue().entrySet()) {
+                hashCode += IntToken.of(key(bucket.getKey(), entry.getKey())).hashCode() ^ entry.getValue().hashCode();
+            }
+        }
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof LongKeyMap)) {
+            return false;
+        }
+        LongKeyMap map = (LongKeyMap) object;
+        return size == map.size && entries.equals(map.entries);
+    }
+
+    @Override
+    public int hashCode() {
+        return mapHashCode();
+    }
+}
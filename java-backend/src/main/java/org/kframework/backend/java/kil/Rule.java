@@ -8,7 +8,9 @@ import com.google.common.collect.Sets;
 import org.apache.commons.collections15.list.UnmodifiableList;
 import org.kframework.attributes.Att;
 import org.kframework.backend.java.builtins.BoolToken;
+import org.kframework.backend.java.rewritemachine.CompiledRHS;
 import org.kframework.backend.java.rewritemachine.GenerateRHSInstructions;
+import org.kframework.backend.java.rewritemachine.RHSCompiler;
 import org.kframework.backend.java.rewritemachine.RHSInstruction;
 import org.kframework.backend.java.symbolic.ConjunctiveFormula;
 import org.kframework.backend.java.symbolic.Equality;
@@ -52,6 +54,12 @@ public class Rule extends JavaSymbolicObject<Rule> implements HasAtt {
      */
     private final List<ImmutableList<RHSInstruction>> instructionsOfLookups;
     private final List<RHSInstruction> rhsInstructions;
+    /**
+     * The instructions above compiled for --compile-rhs. Compiled on first use, since they are not serialized.
+     */
+    private transient volatile CompiledRHS compiledRHS;
+    private transient volatile List<CompiledRHS> compiledRequires;
+    private transient volatile List<CompiledRHS> compiledLookups;
 
     private final Set<Variable> matchingVariables;
 
@@ -262,6 +270,37 @@ public class Rule extends JavaSymbolicObject<Rule> implements HasAtt {
         return rhsInstructions;
     }
 
+    public CompiledRHS compiledRHS() {
+        CompiledRHS result = compiledRHS;
+        if (result == null) {
+            result = RHSCompiler.compile(rhsInstructions);
+            compiledRHS = result;
+        }
+        return result;
+    }
+
+    public List<CompiledRHS> compiledRequires() {
+        List<CompiledRHS> result = compiledRequires;
+        if (result == null) {
+            result = ImmutableList.copyOf(instructionsOfRequires.stream()
+                    .map(RHSCompiler::compile)
+                    .collect(Collectors.toList()));
+            compiledRequires = result;
+        }
+        return result;
+    }
+
+    public List<CompiledRHS> compiledLookups() {
+        List<CompiledRHS> result = compiledLookups;
+        if (result == null) {
+            result = ImmutableList.copyOf(instructionsOfLookups.stream()
+                    .map(RHSCompiler::compile)
+                    .collect(Collectors.toList()));
+            compiledLookups = result;
+        }
+        return result;
+    }
+
     public Set<Variable> matchingVariables() {
         return matchingVariables;
     }
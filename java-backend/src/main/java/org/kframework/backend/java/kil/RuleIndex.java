@@ -0,0 +1,167 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import org.kframework.attributes.Att;
+import org.kframework.backend.java.utils.BitSet;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Index of the rules in {@link Definition#ruleTable} by the heads of the contents of their cells, used by
+ * {@link org.kframework.backend.java.symbolic.FastRuleMatcher} to narrow the set of rules before matching a state
+ * against the rule automaton.
+ * <p>
+ * Only cells that occur at most once in every configuration are indexed, i.e. cells reached from the top cell
+ * through cells of multiplicity other than {@code *}. The head of the contents of a cell is the label of the first
+ * item of its K sequence, a token, or the empty K sequence. For each indexed cell, a rule is either in the bucket of
+ * the head of the cell in its left-hand side, or a wildcard if the head is unknown, e.g. a variable or a function.
+ * The candidates for a state are the intersection over the indexed cells of the wildcards and the bucket of the head
+ * of the cell in the state.
+ */
+public class RuleIndex {
+
+    private static final String EMPTY_K = ".K";
+
+    private final Definition definition;
+    private final int ruleCount;
+    private final BitSet allRules;
+    private final Map<String, CellIndex> cellIndices = new LinkedHashMap<>();
+
+    private static final class CellIndex {
+        final Map<String, BitSet> buckets = new HashMap<>();
+        final BitSet wildcards;
+
+        CellIndex(int ruleCount) {
+            wildcards = BitSet.apply(ruleCount);
+        }
+    }
+
+    public RuleIndex(Definition definition, Map<Integer, Rule> ruleTable) {
+        this.definition = definition;
+        this.ruleCount = ruleTable.size();
+        this.allRules = BitSet.apply(ruleCount);
+        this.allRules.makeOnes(ruleCount);
+
+        Map<Integer, Map<String, String>> ruleHeads = new HashMap<>();
+        for (int i = 0; i < ruleCount; i++) {
+            Rule rule = ruleTable.get(i);
+            Map<String, String> heads = new HashMap<>();
+            if (rule != null) {
+                for (Map.Entry<String, Term> entry : cellContents(rule.leftHandSide()).entrySet()) {
+                    String head = head(entry.getValue());
+                    if (head != null) {
+                        heads.put(entry.getKey(), head);
+                        cellIndices.computeIfAbsent(entry.getKey(), k -> new CellIndex(ruleCount));
+                    }
+                }
+            }
+            ruleHeads.put(i, heads);
+        }
+
+        for (Map.Entry<String, CellIndex> entry : cellIndices.entrySet()) {
+            CellIndex cellIndex = entry.getValue();
+            for (int i = 0; i < ruleCount; i++) {
+                String head = ruleHeads.get(i).get(entry.getKey());
+                if (head == null) {
+                    cellIndex.wildcards.set(i);
+                } else {
+                    cellIndex.buckets.computeIfAbsent(head, k -> BitSet.apply(ruleCount)).set(i);
+                }
+            }
+        }
+    }
+
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    /**
+     * @return a fresh set of the rules that may apply to the given state. Contains all rules if no cell of the state
+     * is indexed.
+     */
+    public BitSet candidates(Term state) {
+        BitSet result = allRules.clone();
+        if (cellIndices.isEmpty()) {
+            return result;
+        }
+        Map<String, Term> contents = cellContents(state);
+        for (Map.Entry<String, CellIndex> entry : cellIndices.entrySet()) {
+            Term content = contents.get(entry.getKey());
+            String head = content != null ? head(content) : null;
+            if (head == null) {
+                continue;
+            }
+            CellIndex cellIndex = entry.getValue();
+            BitSet cellCandidates = cellIndex.wildcards.clone();
+            BitSet bucket = cellIndex.buckets.get(head);
+            if (bucket != null) {
+                cellCandidates.or(bucket);
+            }
+            result.and(cellCandidates);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the contents of the leaf cells of the term that occur at most once in any configuration, by cell label.
+     */
+    private Map<String, Term> cellContents(Term term) {
+        Map<String, Term> result = new HashMap<>();
+        collectCellContents(term, result);
+        return result;
+    }
+
+    private void collectCellContents(Term term, Map<String, Term> result) {
+        if (!isUniqueCell(term)) {
+            return;
+        }
+        KItem cell = (KItem) term;
+        KList children = (KList) cell.kList();
+        if (children.size() == 1 && !isCell(children.get(0))) {
+            result.put(((KLabelConstant) cell.kLabel()).name(), children.get(0));
+            return;
+        }
+        for (Term child : children) {
+            collectCellContents(child, result);
+        }
+    }
+
+    private boolean isCell(Term term) {
+        return term instanceof KItem && ((KItem) term).kLabel() instanceof KLabelConstant
+                && ((KItem) term).kList() instanceof KList
+                && definition.kLabelAttributesOf((KLabelConstant) ((KItem) term).kLabel()).contains(Att.CELL());
+    }
+
+    private boolean isUniqueCell(Term term) {
+        return isCell(term) && !"*".equals(definition.kLabelAttributesOf((KLabelConstant) ((KItem) term).kLabel())
+                .getOptional("multiplicity").orElse(null));
+    }
+
+    /**
+     * @return the head of the contents of a cell, or null if it is not known, e.g. a variable or a function.
+     */
+    private static String head(Term content) {
+        if (content instanceof KSequence) {
+            KSequence kSequence = (KSequence) content;
+            if (kSequence.concreteSize() == 0) {
+                return kSequence.hasFrame() ? null : EMPTY_K;
+            }
+            content = kSequence.get(0);
+        }
+        if (content instanceof KItem) {
+            Term kLabel = ((KItem) content).kLabel();
+            if (kLabel instanceof KLabelConstant && ((KLabelConstant) kLabel).isConstructor()
+                    && !((KLabelConstant) kLabel).isPattern()) {
+                return ((KLabelConstant) kLabel).name();
+            }
+        } else if (content instanceof Token) {
+            return ((Token) content).sort() + ":" + ((Token) content).s();
+        }
+        return null;
+    }
+}
@@ -10,6 +10,8 @@ import java.io.Serializable;
 import org.kframework.kore.KORE;
 import scala.collection.Seq;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -29,6 +31,11 @@ public final class Sort implements org.kframework.kore.Sort, Serializable {
      */
     public static final AtomicInteger maxOrdinal = new AtomicInteger(0);
 
+    /**
+     * The sorts of this process by ordinal. Guards the creation of sorts, so that a deserialized sort cannot take the
+     * ordinal of another sort.
+     */
+    private static final Map<Integer, Sort> ordinals = new HashMap<>();
 
     public static final Sort KITEM          =   Sort.of(Sorts.KItem());
     public static final Sort KSEQUENCE      =   Sort.of(Sorts.K());
@@ -69,7 +76,17 @@ public final class Sort implements org.kframework.kore.Sort, Serializable {
      * @return the sort
      */
     public static Sort of(org.kframework.kore.Sort sort) {
-        return cache.computeIfAbsent(sort.toString(), s -> new Sort(sort.name(), sort.params(), maxOrdinal.getAndIncrement()));
+        Sort cached = cache.get(sort.toString());
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (ordinals) {
+            return cache.computeIfAbsent(sort.toString(), s -> {
+                Sort newSort = new Sort(sort.name(), sort.params(), maxOrdinal.getAndIncrement());
+                ordinals.put(newSort.ordinal, newSort);
+                return newSort;
+            });
+        }
     }
 
 
@@ -105,14 +122,30 @@ public final class Sort implements org.kframework.kore.Sort, Serializable {
     /**
      * Returns the cached instance rather than the de-serialized instance if
      * there is a cached instance.
+     *
+     * @throws KEMException if the ordinal of the de-serialized sort belongs to another sort in this process.
      */
     Object readResolve() throws ObjectStreamException {
-        if (cache.containsKey(name) && cache.get(name).ordinal != this.ordinal) {
-            throw KEMException.criticalError("The ordinal for sort: " + name + " is " + cache.get(name).ordinal +
-                    " in the cache and " + this.ordinal + " serialized.");
+        synchronized (ordinals) {
+            Sort cached = cache.get(name);
+            if (cached != null) {
+                if (cached.ordinal != this.ordinal) {
+                    throw KEMException.criticalError("The ordinal for sort: " + name + " is " + cached.ordinal +
+                            " in the cache and " + this.ordinal + " serialized.");
+                }
+                return cached;
+            }
+            Sort owner = ordinals.get(ordinal);
+            if (owner != null) {
+                throw KEMException.criticalError("The ordinal " + ordinal + " of serialized sort: " + name +
+                        " belongs to sort: " + owner.name + " in the cache.");
+            }
+            // ordinals of objects created after deserialization must not overlap with the deserialized ones
+            maxOrdinal.accumulateAndGet(ordinal + 1, Math::max);
+            ordinals.put(ordinal, this);
+            cache.put(name, this);
+            return this;
         }
-        // TODO: fix bug: ordinals from deserialized objects may overlap with those of newly created objects
-        return cache.computeIfAbsent(name, x -> this);
     }
 
     public static Sort parse(String s) {
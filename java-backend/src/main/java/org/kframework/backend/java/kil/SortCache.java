@@ -0,0 +1,190 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cache of the sort information of {@link KItem}s, which depends only on the {@link KLabelConstant} and the sorts
+ * of the children.
+ * <p>
+ * A lock-free open-addressing table with linear probing. Keys are the label and the sorts of the children, with
+ * whether each of them is exact, so lookups allocate nothing but these two arrays. Sorts are compared by reference;
+ * their ordinals only drive the hash. Entries are never removed. Concurrent insertions that
+ * race with a resize may be lost, which only costs a later miss. The table stops growing at {@link #MAX_CAPACITY}
+ * slots, and then stops accepting new entries once it is 3/4 full.
+ */
+final class SortCache {
+
+    static final int MIN_CAPACITY = 1 << 10;
+    static final int MAX_CAPACITY = 1 << 20;
+
+    private static final class Entry {
+        final int hash;
+        final KLabelConstant kLabel;
+        final Sort[] childSorts;
+        final boolean[] exactChildSorts;
+        final KItem.CacheTableValue value;
+
+        Entry(int hash, KLabelConstant kLabel, Sort[] childSorts, boolean[] exactChildSorts,
+              KItem.CacheTableValue value) {
+            this.hash = hash;
+            this.kLabel = kLabel;
+            this.childSorts = childSorts;
+            this.exactChildSorts = exactChildSorts;
+            this.value = value;
+        }
+    }
+
+    private final int maxCapacity;
+    private volatile AtomicReferenceArray<Entry> table;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param expectedSize the expected number of entries, used to pre-size the table.
+     */
+    SortCache(int expectedSize) {
+        this(expectedSize, MIN_CAPACITY, MAX_CAPACITY);
+    }
+
+    SortCache(int expectedSize, int minCapacity, int maxCapacity) {
+        int capacity = minCapacity;
+        while (capacity < maxCapacity && capacity / 4 * 3 < expectedSize) {
+            capacity <<= 1;
+        }
+        this.maxCapacity = maxCapacity;
+        table = new AtomicReferenceArray<>(capacity);
+    }
+
+    KItem.CacheTableValue get(KLabelConstant kLabel, KList kList) {
+        Sort[] childSorts = new Sort[kList.concreteSize()];
+        boolean[] exactChildSorts = new boolean[childSorts.length];
+        childSorts(kList, childSorts, exactChildSorts);
+        return get(kLabel, childSorts, exactChildSorts);
+    }
+
+    void put(KLabelConstant kLabel, KList kList, KItem.CacheTableValue value) {
+        Sort[] childSorts = new Sort[kList.concreteSize()];
+        boolean[] exactChildSorts = new boolean[childSorts.length];
+        childSorts(kList, childSorts, exactChildSorts);
+        put(kLabel, childSorts, exactChildSorts, value);
+    }
+
+    KItem.CacheTableValue get(KLabelConstant kLabel, Sort[] childSorts, boolean[] exactChildSorts) {
+        int hash = hash(kLabel, childSorts, exactChildSorts);
+        AtomicReferenceArray<Entry> table = this.table;
+        int mask = table.length() - 1;
+        for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+            Entry entry = table.get(i);
+            if (entry == null) {
+                return null;
+            }
+            if (matches(entry, hash, kLabel, childSorts, exactChildSorts)) {
+                return entry.value;
+            }
+        }
+        return null;
+    }
+
+    void put(KLabelConstant kLabel, Sort[] childSorts, boolean[] exactChildSorts, KItem.CacheTableValue value) {
+        int hash = hash(kLabel, childSorts, exactChildSorts);
+        AtomicReferenceArray<Entry> table = this.table;
+        if (size.get() >= table.length() / 4 * 3) {
+            table = resize(table);
+            if (table == null) {
+                return;
+            }
+        }
+        Entry newEntry = new Entry(hash, kLabel, childSorts, exactChildSorts, value);
+        int mask = table.length() - 1;
+        for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+            Entry entry = table.get(i);
+            if (entry == null) {
+                if (table.compareAndSet(i, null, newEntry)) {
+                    size.incrementAndGet();
+                    return;
+                }
+                entry = table.get(i);
+            }
+            if (matches(entry, hash, kLabel, childSorts, exactChildSorts)) {
+                return;
+            }
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    int capacity() {
+        return table.length();
+    }
+
+    /**
+     * @return the table to insert into, or null if the table is full and may not grow anymore.
+     */
+    private synchronized AtomicReferenceArray<Entry> resize(AtomicReferenceArray<Entry> oldTable) {
+        if (table != oldTable) {
+            return table;
+        }
+        if (oldTable.length() >= maxCapacity) {
+            return null;
+        }
+        AtomicReferenceArray<Entry> newTable = new AtomicReferenceArray<>(oldTable.length() * 2);
+        int mask = newTable.length() - 1;
+        int count = 0;
+        for (int j = 0; j < oldTable.length(); j++) {
+            Entry entry = oldTable.get(j);
+            if (entry != null) {
+                int i = entry.hash & mask;
+                while (newTable.get(i) != null) {
+                    i = (i + 1) & mask;
+                }
+                newTable.set(i, entry);
+                count++;
+            }
+        }
+        size.set(count);
+        table = newTable;
+        return newTable;
+    }
+
+    private static boolean matches(Entry entry, int hash, KLabelConstant kLabel, Sort[] childSorts,
+                                   boolean[] exactChildSorts) {
+        if (entry.hash != hash || entry.childSorts.length != childSorts.length || !entry.kLabel.equals(kLabel)) {
+            return false;
+        }
+        for (int i = 0; i < childSorts.length; i++) {
+            if (entry.childSorts[i] != childSorts[i] || entry.exactChildSorts[i] != exactChildSorts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fills in the sort of each child and whether it is exact.
+     */
+    private static void childSorts(KList kList, Sort[] childSorts, boolean[] exactChildSorts) {
+        int idx = 0;
+        for (Term term : kList) {
+            if (term instanceof KItem && ((KItem) term).kLabel() instanceof KLabelInjection) {
+                term = ((KLabelInjection) ((KItem) term).kLabel()).term();
+            }
+            childSorts[idx] = term.sort();
+            exactChildSorts[idx++] = term.isExactSort();
+        }
+    }
+
+    static int hash(KLabelConstant kLabel, Sort[] childSorts, boolean[] exactChildSorts) {
+        int hash = kLabel.ordinal();
+        for (int i = 0; i < childSorts.length; i++) {
+            hash = hash * 31 + (childSorts[i].ordinal() << 1 | (exactChildSorts[i] ? 1 : 0));
+        }
+        // spread the bits, so that the low bits used as table index depend on all the children
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+}
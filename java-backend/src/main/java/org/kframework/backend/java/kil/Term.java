@@ -23,8 +23,7 @@ import java.util.Map;
 public abstract class Term extends JavaSymbolicObject<Term> implements Comparable<Term>,
         org.kframework.kore.K {
 
-    //For performance improvement. Faster than accessing evaluationCache directly.
-    private transient Map<ConjunctiveFormula, Term> evaluationCacheRow;
+    //For performance improvement. Faster than accessing the function cache.
     private transient Term nullConstraintEvalResult;
 
     protected final Kind kind;
@@ -132,28 +131,20 @@ public abstract class Term extends JavaSymbolicObject<Term> implements Comparabl
     }
 
     Term cacheGet(ConjunctiveFormula constraint, TermContext context) {
-        if (constraint == null) {
-            if (nullConstraintEvalResult == null) {
-                nullConstraintEvalResult = context.global().functionCache.nullConstraintEvalCache.get(this);
-            }
+        if (constraint == null && nullConstraintEvalResult != null) {
             return nullConstraintEvalResult;
-        } else {
-            if (evaluationCacheRow == null) {
-                evaluationCacheRow = context.global().functionCache.evaluationCache.row(this);
-            }
-            return evaluationCacheRow.get(constraint);
         }
+        Term result = context.global().functionCache.get(this, constraint);
+        if (constraint == null) {
+            nullConstraintEvalResult = result;
+        }
+        return result;
     }
 
     void cachePut(ConjunctiveFormula constraint, Term result, TermContext context) {
+        context.global().functionCache.put(this, constraint, result);
         if (constraint == null) {
-            context.global().functionCache.nullConstraintEvalCache.put(this, result);
             nullConstraintEvalResult = result;
-        } else {
-            if (evaluationCacheRow == null) {
-                evaluationCacheRow = context.global().functionCache.evaluationCache.row(this);
-            }
-            evaluationCacheRow.put(constraint, result);
         }
     }
 
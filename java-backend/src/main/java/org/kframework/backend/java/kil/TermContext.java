@@ -48,10 +48,18 @@ public class TermContext {
 
 
     /**
-     * Forks an identical {@link TermContext}.
+     * Forks an identical {@link TermContext}, with its own fresh counter and top term/constraint.
      */
     public TermContext fork() {
-        return counter != null ? new TermContext(global, new AtomicLong(counter.get())) : this;
+        if (counter == null) {
+            return this;
+        }
+        TermContext fork = new TermContext(global, new AtomicLong(counter.get()));
+        fork.initialLhsVariables = initialLhsVariables;
+        fork.topTerm = topTerm;
+        fork.topConstraint = topConstraint;
+        fork.converter = converter;
+        return fork;
     }
 
     public BigInteger freshConstant() {
@@ -0,0 +1,66 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.kframework.attributes.Att;
+import org.kframework.backend.java.util.CacheStats;
+
+/**
+ * Hash-consing table of ground terms, so that equal terms share one instance.
+ * <p>
+ * The table holds its terms weakly and may be used from several threads. Two distinct {@link KItem}s interned by the
+ * same table are known to be different, so comparing them is a pointer check. Terms are interned bottom-up by their
+ * builders, so a duplicate replaced by its shared instance only costs its top node. The number of such duplicates is
+ * reported as hits.
+ */
+public class TermInterner {
+
+    public final CacheStats stats = new CacheStats("Term interner (hits = duplicates)");
+    private final Interner<Term> interner = Interners.newWeakInterner();
+    private final boolean enabled;
+
+    public TermInterner(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the shared instance equal to the given term, or the term itself if it cannot be shared or interning is
+     * disabled.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Term> T intern(T term) {
+        if (!enabled) {
+            return term;
+        }
+        if (term instanceof KItem) {
+            KItem kItem = (KItem) term;
+            if (kItem.interner == this) {
+                return term;
+            }
+            if (!isInternable(kItem)) {
+                return term;
+            }
+        } else if (!(term instanceof Token)) {
+            return term;
+        }
+
+        Term canonical = interner.intern(term);
+        if (canonical == term) {
+            stats.miss();
+            if (term instanceof KItem) {
+                ((KItem) term).interner = this;
+            }
+        } else {
+            stats.hit();
+        }
+        return (T) canonical;
+    }
+
+    /**
+     * Attributes and the rule masks are not part of term equality, so only terms without them may be shared.
+     */
+    private static boolean isInternable(KItem kItem) {
+        return kItem.att().equals(Att.empty()) && !kItem.hasChildrenDontCareRuleMask() && kItem.isGround();
+    }
+}
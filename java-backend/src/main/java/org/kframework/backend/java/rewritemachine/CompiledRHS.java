@@ -0,0 +1,21 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.rewritemachine;
+
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.TermContext;
+import org.kframework.backend.java.kil.Variable;
+
+import java.util.Map;
+
+/**
+ * A right-hand side or side condition of a rule, compiled by {@link RHSCompiler} from its {@link RHSInstruction}s.
+ */
+@FunctionalInterface
+public interface CompiledRHS {
+
+    /**
+     * Same as {@link org.kframework.backend.java.util.RewriteEngineUtils#construct} on the instructions this was
+     * compiled from.
+     */
+    Term construct(Map<Variable, Term> solution, TermContext context);
+}
@@ -0,0 +1,191 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.rewritemachine;
+
+import org.kframework.attributes.Att;
+import org.kframework.backend.java.kil.BuiltinList;
+import org.kframework.backend.java.kil.BuiltinMap;
+import org.kframework.backend.java.kil.BuiltinSet;
+import org.kframework.backend.java.kil.InjectedKLabel;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KItemProjection;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KLabelInjection;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.KSequence;
+import org.kframework.backend.java.kil.Kind;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.TermContext;
+import org.kframework.backend.java.kil.Variable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles {@link RHSInstruction} schedules into trees of specialized lambdas, one per instruction, so that building a
+ * term neither dispatches on instruction types nor uses an operand stack.
+ * <p>
+ * The stack of the interpreter in {@link org.kframework.backend.java.util.RewriteEngineUtils#construct} is simulated
+ * at compile time. Subterms are still built in instruction order, so that function evaluation happens in the same
+ * order as in the interpreter.
+ */
+public final class RHSCompiler {
+
+    private RHSCompiler() { }
+
+    public static CompiledRHS compile(List<RHSInstruction> instructions) {
+        Deque<CompiledRHS> stack = new ArrayDeque<>();
+        for (RHSInstruction instruction : instructions) {
+            switch (instruction.type()) {
+            case PUSH:
+                Term term = instruction.term();
+                stack.push((solution, context) -> term);
+                break;
+            case SUBST:
+                Variable var = (Variable) instruction.term();
+                stack.push((solution, context) -> {
+                    Term content = solution.get(var);
+                    return content != null ? content : var;
+                });
+                break;
+            case CONSTRUCT:
+                stack.push(compileConstructor(instruction.constructor(), stack));
+                break;
+            case EVAL:
+                CompiledRHS kItem = stack.pop();
+                stack.push((solution, context) ->
+                        ((KItem) kItem.construct(solution, context)).resolveFunctionAndAnywhere(context));
+                break;
+            case PROJECT:
+                CompiledRHS projection = stack.pop();
+                stack.push((solution, context) ->
+                        ((KItemProjection) projection.construct(solution, context)).evaluateProjection());
+                break;
+            default:
+                throw new AssertionError("unreachable");
+            }
+        }
+        assert stack.size() == 1;
+        return stack.pop();
+    }
+
+    private static CompiledRHS compileConstructor(RHSInstruction.Constructor constructor, Deque<CompiledRHS> stack) {
+        switch (constructor.type()) {
+        case BUILTIN_LIST: {
+            CompiledRHS[] elements = pop(stack, constructor.size1());
+            Sort sort = constructor.assocListSort;
+            KLabelConstant operator = constructor.assocListOperator;
+            KLabelConstant unit = constructor.assocListUnit;
+            return (solution, context) -> {
+                Term[] terms = constructAll(elements, solution, context);
+                BuiltinList.Builder builder = BuiltinList.builder(sort, operator, unit, context.global());
+                for (Term element : terms) {
+                    builder.add(element);
+                }
+                return builder.build();
+            };
+        }
+        case BUILTIN_MAP: {
+            int size = constructor.size1();
+            CompiledRHS[] operands = pop(stack, 2 * size + constructor.size2());
+            return (solution, context) -> {
+                Term[] terms = constructAll(operands, solution, context);
+                BuiltinMap.Builder builder = BuiltinMap.builder(context.global());
+                for (int i = 0; i < size; i++) {
+                    builder.put(terms[2 * i], terms[2 * i + 1]);
+                }
+                for (int i = 2 * size; i < terms.length; i++) {
+                    builder.concatenate(terms[i]);
+                }
+                return builder.build();
+            };
+        }
+        case BUILTIN_SET: {
+            int size = constructor.size1();
+            CompiledRHS[] operands = pop(stack, size + constructor.size2());
+            return (solution, context) -> {
+                Term[] terms = constructAll(operands, solution, context);
+                BuiltinSet.Builder builder = BuiltinSet.builder(context.global());
+                for (int i = 0; i < size; i++) {
+                    builder.add(terms[i]);
+                }
+                for (int i = size; i < terms.length; i++) {
+                    builder.concatenate(terms[i]);
+                }
+                return builder.build();
+            };
+        }
+        case KITEM: {
+            CompiledRHS kLabel = stack.pop();
+            CompiledRHS kList = stack.pop();
+            Att att = constructor.att();
+            return (solution, context) -> {
+                Term kListTerm = kList.construct(solution, context);
+                Term kLabelTerm = kLabel.construct(solution, context);
+                return KItem.of(kLabelTerm, kListTerm, context.global(), att);
+            };
+        }
+        case KITEM_PROJECTION: {
+            CompiledRHS term = stack.pop();
+            Kind kind = constructor.kind();
+            return (solution, context) -> new KItemProjection(kind, term.construct(solution, context));
+        }
+        case KLABEL_INJECTION: {
+            CompiledRHS term = stack.pop();
+            return (solution, context) -> new KLabelInjection(term.construct(solution, context));
+        }
+        case INJECTED_KLABEL: {
+            CompiledRHS term = stack.pop();
+            return (solution, context) -> new InjectedKLabel(term.construct(solution, context));
+        }
+        case KLIST: {
+            CompiledRHS[] elements = pop(stack, constructor.size1());
+            return (solution, context) -> {
+                Term[] terms = constructAll(elements, solution, context);
+                KList.Builder builder = KList.builder();
+                for (Term element : terms) {
+                    builder.concatenate(element);
+                }
+                return builder.build();
+            };
+        }
+        case KSEQUENCE: {
+            CompiledRHS[] elements = pop(stack, constructor.size1());
+            return (solution, context) -> {
+                Term[] terms = constructAll(elements, solution, context);
+                KSequence.Builder builder = KSequence.builder();
+                for (Term element : terms) {
+                    builder.concatenate(element);
+                }
+                return builder.build();
+            };
+        }
+        default:
+            throw new AssertionError("unreachable");
+        }
+    }
+
+    /**
+     * @return the top {@code size} operands, in the order the interpreter pops them.
+     */
+    private static CompiledRHS[] pop(Deque<CompiledRHS> stack, int size) {
+        CompiledRHS[] operands = new CompiledRHS[size];
+        for (int i = 0; i < size; i++) {
+            operands[i] = stack.pop();
+        }
+        return operands;
+    }
+
+    /**
+     * Builds the operands in the order the interpreter pushes them, that is in reverse pop order.
+     */
+    private static Term[] constructAll(CompiledRHS[] operands, Map<Variable, Term> solution, TermContext context) {
+        Term[] terms = new Term[operands.length];
+        for (int i = operands.length - 1; i >= 0; i--) {
+            terms[i] = operands[i].construct(solution, context);
+        }
+        return terms;
+    }
+}
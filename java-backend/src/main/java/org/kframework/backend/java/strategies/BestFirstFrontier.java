@@ -0,0 +1,84 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.strategies;
+
+import com.google.common.collect.MinMaxPriorityQueue;
+import org.apache.commons.lang3.tuple.Pair;
+import org.kframework.backend.java.kil.ConstrainedTerm;
+
+import java.math.BigInteger;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Explores the state with the smallest heuristic value first. States without a heuristic value come last, and
+ * states with equal values are explored in the order they were discovered.
+ * <p>
+ * With a maximum size, the states with the largest heuristic values are dropped when the frontier is full, which
+ * bounds memory at the price of completeness.
+ */
+public class BestFirstFrontier implements SearchFrontier {
+
+    private static final class Node {
+        final ConstrainedTerm term;
+        final int depth;
+        final BigInteger heuristic;
+        final long sequenceNumber;
+
+        Node(ConstrainedTerm term, int depth, BigInteger heuristic, long sequenceNumber) {
+            this.term = term;
+            this.depth = depth;
+            this.heuristic = heuristic;
+            this.sequenceNumber = sequenceNumber;
+        }
+    }
+
+    private static final Comparator<Node> ORDER = Comparator
+            .comparing((Node node) -> node.heuristic, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(node -> node.sequenceNumber);
+
+    private final Function<ConstrainedTerm, BigInteger> heuristic;
+    private final MinMaxPriorityQueue<Node> queue;
+    private long sequenceNumber;
+    private int dropped;
+
+    /**
+     * @param heuristic   the heuristic value of a state, or null if it has none.
+     * @param maximumSize the maximum number of states in the frontier, 0 for unbounded.
+     */
+    public BestFirstFrontier(Function<ConstrainedTerm, BigInteger> heuristic, int maximumSize) {
+        this.heuristic = heuristic;
+        MinMaxPriorityQueue.Builder<Node> builder = MinMaxPriorityQueue.orderedBy(ORDER);
+        if (maximumSize > 0) {
+            builder = builder.maximumSize(maximumSize);
+        }
+        this.queue = builder.create();
+    }
+
+    @Override
+    public void addAll(List<ConstrainedTerm> terms, int depth) {
+        for (ConstrainedTerm term : terms) {
+            int size = queue.size();
+            queue.add(new Node(term, depth, heuristic.apply(term), sequenceNumber++));
+            if (queue.size() == size) {
+                dropped++;
+            }
+        }
+    }
+
+    @Override
+    public Pair<ConstrainedTerm, Integer> remove() {
+        Node node = queue.removeFirst();
+        return Pair.of(node.term, node.depth);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public int dropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,36 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.strategies;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.kframework.backend.java.kil.ConstrainedTerm;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Explores the most recently discovered state first. Successors of a state are explored in the order the rewriter
+ * found them.
+ */
+public class DepthFirstFrontier implements SearchFrontier {
+
+    private final Deque<Pair<ConstrainedTerm, Integer>> stack = new ArrayDeque<>();
+
+    @Override
+    public void addAll(List<ConstrainedTerm> terms, int depth) {
+        for (ListIterator<ConstrainedTerm> it = terms.listIterator(terms.size()); it.hasPrevious(); ) {
+            stack.push(Pair.of(it.previous(), depth));
+        }
+    }
+
+    @Override
+    public Pair<ConstrainedTerm, Integer> remove() {
+        return stack.pop();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return stack.isEmpty();
+    }
+}
@@ -0,0 +1,33 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.strategies;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.kframework.backend.java.kil.ConstrainedTerm;
+
+import java.util.List;
+
+/**
+ * The states krun --search has discovered but not yet explored, together with their depth. The frontier decides
+ * which of them is explored next.
+ */
+public interface SearchFrontier {
+
+    /**
+     * Adds the successors of a state, in the order the rewriter found them.
+     */
+    void addAll(List<ConstrainedTerm> terms, int depth);
+
+    /**
+     * Removes and returns the next state to explore.
+     */
+    Pair<ConstrainedTerm, Integer> remove();
+
+    boolean isEmpty();
+
+    /**
+     * @return the number of states the frontier dropped to stay within its maximum size.
+     */
+    default int dropped() {
+        return 0;
+    }
+}
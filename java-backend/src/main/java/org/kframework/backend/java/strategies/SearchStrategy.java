@@ -0,0 +1,25 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.strategies;
+
+/**
+ * The order in which krun --search explores states.
+ */
+public enum SearchStrategy {
+    /**
+     * Layer by layer, keeping whole layers in memory.
+     */
+    BFS,
+    /**
+     * Depth-first, keeping only the unexplored siblings of the current path.
+     */
+    DFS,
+    /**
+     * Depth-first searches with a depth limit doubled each time, until the depth bound is reached or no state is cut
+     * by the limit. Finds shallow states first, like BFS, with the memory footprint of DFS.
+     */
+    ITERATIVE_DEEPENING,
+    /**
+     * The state with the smallest value of a user-given heuristic cell first.
+     */
+    BEST_FIRST
+}
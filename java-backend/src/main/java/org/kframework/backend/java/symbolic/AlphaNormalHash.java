@@ -0,0 +1,217 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.kframework.backend.java.builtins.UninterpretedToken;
+import org.kframework.backend.java.kil.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Computes hashes of terms that are stable across runs and independent of the names of variables.
+ * <p>
+ * Variables are hashed by their sort and the order of their first occurrence, so alpha-equivalent terms have equal
+ * hashes. The hash is a serialization of the term up to this renaming, so terms with equal hashes are
+ * alpha-equivalent with overwhelming probability. The elements of maps, sets and substitutions are hashed in the
+ * order of their hashes with all variables anonymized, which is independent of the iteration order in most cases.
+ */
+public class AlphaNormalHash extends BottomUpVisitor {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final Hasher hasher = HASH_FUNCTION.newHasher();
+    /**
+     * The index of each variable in order of first occurrence, or null to hash all variables by their sort only.
+     */
+    private final Map<Variable, Integer> renaming;
+
+    private AlphaNormalHash(Map<Variable, Integer> renaming) {
+        this.renaming = renaming;
+    }
+
+    /**
+     * @param prefix    extra data to hash before the terms, e.g. flags.
+     * @param terms     the terms to hash, in order. May contain nulls.
+     * @param variables a set of variables whose hash only depends on which of them occur in the terms, and on the
+     *                  sorts of the others.
+     * @return the hash as a hex string.
+     */
+    public static String of(String prefix, List<Term> terms, Collection<Variable> variables) {
+        AlphaNormalHash hash = new AlphaNormalHash(new HashMap<>());
+        hash.putTag(prefix);
+        for (Term term : terms) {
+            if (term == null) {
+                hash.putTag("null");
+            } else {
+                term.accept(hash);
+            }
+        }
+        List<String> variableIds = variables.stream()
+                .map(v -> hash.renaming.getOrDefault(v, -1) + ":" + v.sort())
+                .sorted()
+                .collect(Collectors.toList());
+        hash.hasher.putInt(variableIds.size());
+        variableIds.forEach(hash::putTag);
+        return hash.hasher.hash().toString();
+    }
+
+    private static long anonymousHash(Term... terms) {
+        AlphaNormalHash hash = new AlphaNormalHash(null);
+        for (Term term : terms) {
+            term.accept(hash);
+        }
+        return hash.hasher.hash().asLong();
+    }
+
+    /**
+     * Visits the given groups of terms in the order of their anonymous hashes.
+     */
+    private void acceptUnordered(Collection<Term[]> groups) {
+        hasher.putInt(groups.size());
+        List<Term[]> sorted = new ArrayList<>(groups);
+        Map<Term[], Long> keys = new HashMap<>();
+        sorted.forEach(g -> keys.put(g, anonymousHash(g)));
+        sorted.sort(Comparator.comparing(keys::get));
+        for (Term[] group : sorted) {
+            for (Term term : group) {
+                term.accept(this);
+            }
+        }
+    }
+
+    private void putTag(String tag) {
+        hasher.putUnencodedChars(tag).putChar('\0');
+    }
+
+    @Override
+    public void visit(BuiltinList node) {
+        super.visit(node);
+        putTag("BuiltinList");
+        putTag(node.operatorKLabel.name());
+        putTag(node.sort.toString());
+        hasher.putInt(node.children.size());
+    }
+
+    @Override
+    public void visit(BuiltinMap builtinMap) {
+        putTag("BuiltinMap");
+        acceptUnordered(builtinMap.getEntries().entrySet().stream()
+                .map(entry -> new Term[]{entry.getKey(), entry.getValue()})
+                .collect(Collectors.toList()));
+        acceptUnordered(builtinMap.baseTerms().stream().map(t -> new Term[]{t}).collect(Collectors.toList()));
+    }
+
+    @Override
+    public void visit(BuiltinSet builtinSet) {
+        putTag("BuiltinSet");
+        acceptUnordered(builtinSet.elements().stream().map(t -> new Term[]{t}).collect(Collectors.toList()));
+        acceptUnordered(builtinSet.baseTerms().stream().map(t -> new Term[]{t}).collect(Collectors.toList()));
+    }
+
+    @Override
+    public void visit(KItem kItem) {
+        kItem.kLabel().accept(this);
+        kItem.kList().accept(this);
+        putTag("KItem");
+    }
+
+    @Override
+    public void visit(KItemProjection kItemProjection) {
+        kItemProjection.term().accept(this);
+        putTag("KItemProjection");
+        putTag(kItemProjection.kind().toString());
+    }
+
+    @Override
+    public void visit(KLabelInjection kLabelInjection) {
+        kLabelInjection.term().accept(this);
+        putTag("KLabelInjection");
+    }
+
+    @Override
+    public void visit(InjectedKLabel injectedKLabel) {
+        injectedKLabel.injectedKLabel().accept(this);
+        putTag("InjectedKLabel");
+    }
+
+    @Override
+    public void visit(KCollection kCollection) {
+        for (Term term : kCollection) {
+            term.accept(this);
+        }
+        if (kCollection.hasFrame()) {
+            kCollection.frame().accept(this);
+        }
+        putTag(kCollection.getClass().getSimpleName());
+        hasher.putInt(kCollection.size()).putBoolean(kCollection.hasFrame());
+    }
+
+    @Override
+    public void visit(KLabelConstant kLabelConstant) {
+        putTag("KLabelConstant");
+        putTag(kLabelConstant.name());
+    }
+
+    @Override
+    public void visit(Token token) {
+        putTag("Token");
+        putTag(token.sort().toString());
+        putTag(token.javaBackendValue());
+    }
+
+    @Override
+    public void visit(UninterpretedToken uninterpretedToken) {
+        visit((Token) uninterpretedToken);
+    }
+
+    @Override
+    public void visit(Variable variable) {
+        putTag("Variable");
+        putTag(variable.sort().toString());
+        if (renaming != null) {
+            hasher.putInt(renaming.computeIfAbsent(variable, v -> renaming.size()));
+        }
+    }
+
+    @Override
+    public void visit(ConjunctiveFormula node) {
+        putTag("ConjunctiveFormula");
+        putTag(node.truthValue().toString());
+        acceptUnordered(node.substitution().entrySet().stream()
+                .map(entry -> new Term[]{entry.getKey(), entry.getValue()})
+                .collect(Collectors.toList()));
+        hasher.putInt(node.equalities().size());
+        for (Equality equality : node.equalities()) {
+            equality.leftHandSide().accept(this);
+            equality.rightHandSide().accept(this);
+        }
+        hasher.putInt(node.disjunctions().size());
+        for (DisjunctiveFormula disjunctiveFormula : node.disjunctions()) {
+            disjunctiveFormula.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(DisjunctiveFormula node) {
+        super.visit(node);
+        putTag("DisjunctiveFormula");
+        hasher.putInt(node.conjunctions().size());
+    }
+
+    /**
+     * Other terms are rare in formulas; their class and string representation are enough.
+     */
+    @Override
+    public void visit(Term term) {
+        putTag(term.getClass().getSimpleName());
+        putTag(term.toString());
+    }
+}
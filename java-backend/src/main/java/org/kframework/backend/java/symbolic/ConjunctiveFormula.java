@@ -3,6 +3,7 @@ package org.kframework.backend.java.symbolic;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
@@ -29,6 +30,7 @@ import org.kframework.backend.java.kil.SortSignature;
 import org.kframework.backend.java.kil.Term;
 import org.kframework.backend.java.kil.TermContext;
 import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.util.CacheStats;
 import org.kframework.backend.java.util.Constants;
 import org.kframework.backend.java.util.FormulaContext;
 import org.kframework.backend.java.util.RewriteEngineUtils;
@@ -46,6 +48,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -109,7 +113,13 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
 
     private final Equality falsifyingEquality;
 
-    private transient final GlobalContext global;
+    private final GlobalContext global;
+
+    /**
+     * With {@code --simplify-incrementally}, the equalities of this formula already normalized against its
+     * substitution by the simplification that produced it or the formula it was extended from, or null if unknown.
+     */
+    private final transient Normalization normalization;
 
     public ConjunctiveFormula(
             Substitution<Variable, Term> substitution,
@@ -118,6 +128,17 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
             TruthValue truthValue,
             Equality falsifyingEquality,
             GlobalContext global) {
+        this(substitution, equalities, disjunctions, truthValue, falsifyingEquality, global, null);
+    }
+
+    private ConjunctiveFormula(
+            Substitution<Variable, Term> substitution,
+            PersistentUniqueList<Equality> equalities,
+            PersistentUniqueList<DisjunctiveFormula> disjunctions,
+            TruthValue truthValue,
+            Equality falsifyingEquality,
+            GlobalContext global,
+            Normalization normalization) {
         super(Kind.KITEM);
 
         // assert that there is no equality between an empty list and a list containing an element (the equality should be false instead)
@@ -129,6 +150,7 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
         this.truthValue = truthValue;
         this.falsifyingEquality = falsifyingEquality;
         this.global = global;
+        this.normalization = normalization;
     }
 
     public ConjunctiveFormula(
@@ -240,7 +262,8 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
                 disjunctions,
                 truthValue != TruthValue.FALSE ? TruthValue.UNKNOWN : TruthValue.FALSE,
                 falsifyingEquality,
-                global);
+                global,
+                normalization);
     }
 
     /**
@@ -297,7 +320,8 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
                 disjunctions.plus(disjunction),
                 truthValue != TruthValue.FALSE ? TruthValue.UNKNOWN : TruthValue.FALSE,
                 falsifyingEquality,
-                global);
+                global,
+                normalization);
     }
 
     @SuppressWarnings("unchecked")
@@ -450,6 +474,13 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
         Substitution<Variable, Term> substitution = this.substitution;
         PersistentUniqueList<Equality> equalities = this.equalities;
         PersistentUniqueList<DisjunctiveFormula> disjunctions = this.disjunctions;
+        NormalizationIndex index = global.javaExecutionOptions.simplifyIncrementally
+                                   ? new NormalizationIndex(normalization != null
+                                                            && normalization.isValidFor(substitution, patternFolding,
+                                                                    partialSimplification, rhsOnlyVariables)
+                                                            ? normalization.equalities
+                                                            : PersistentUniqueList.empty())
+                                   : null;
 
         try {
             boolean change;
@@ -460,6 +491,10 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
                 //Part 1. Unifications.
                 for (int i = 0; i < equalities.size(); ++i) {
                     Equality equality = equalities.get(i);
+                    if (index != null && index.skip(equality)) {
+                        pendingEqualities = pendingEqualities.plus(equality);
+                        continue;
+                    }
 
                     //Any equality should be evaluated in the context of other entries but not itself, otherwise information
                     //loss can happen. Details: https://github.com/kframework/k-legacy/pull/2399#issuecomment-360680618
@@ -492,6 +527,9 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
                         // TODO(AndreiS): fix this in a general way
                         if (unificationConstraint.equalities.contains(equality)) {
                             pendingEqualities = pendingEqualities.plus(equality);
+                            if (index != null) {
+                                index.normalized(equality);
+                            }
                             continue;
                         }
 
@@ -510,12 +548,18 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
                             substitution = ImmutableMapSubstitution.composeAndEvaluate(substitution, newVarSubstitution,
                                     context);
                             change = true;
+                            if (index != null) {
+                                index.bind(newVarSubstitution.keySet());
+                            }
                             if (substitution.isFalse(global)) {
                                 return falsify(substitution, equalities, disjunctions, equality, null,
                                         logFormulaFalsify);
                             }
                         } else {
                             pendingEqualities = pendingEqualities.plus(equality);
+                            if (index != null) {
+                                index.normalized(equality);
+                            }
                         }
                     }
                 }
@@ -527,13 +571,18 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
                     for (int i = 0; i < equalities.size(); ++i) {
                         Equality equality = equalities.get(i);
 
-                        //Any equality should be evaluated in the context of other entries but not itself, otherwise information
-                        //loss can happen. Details: https://github.com/kframework/k-legacy/pull/2399#issuecomment-360680618
-                        context.setTopConstraint(minus(originalTopConstraint, equality));
+                        if (index == null || !index.isUpToDate(equality)) {
+                            //Any equality should be evaluated in the context of other entries but not itself, otherwise information
+                            //loss can happen. Details: https://github.com/kframework/k-legacy/pull/2399#issuecomment-360680618
+                            context.setTopConstraint(minus(originalTopConstraint, equality));
 
-                        Term leftHandSide = equality.leftHandSide().substituteAndEvaluate(substitution, context);
-                        Term rightHandSide = equality.rightHandSide().substituteAndEvaluate(substitution, context);
-                        equality = new Equality(leftHandSide, rightHandSide, global);
+                            equality = new Equality(
+                                    equality.leftHandSide().substituteAndEvaluate(substitution, context),
+                                    equality.rightHandSide().substituteAndEvaluate(substitution, context),
+                                    global);
+                        }
+                        Term leftHandSide = equality.leftHandSide();
+                        Term rightHandSide = equality.rightHandSide();
 
                         //Attempt to replace equality by substitution
                         ImmutableMapSubstitution<Variable, Term> newVarSubstitution =
@@ -544,6 +593,9 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
                             substitution = ImmutableMapSubstitution.composeAndEvaluate(substitution, newVarSubstitution,
                                     context);
                             change = true;
+                            if (index != null) {
+                                index.bind(newVarSubstitution.keySet());
+                            }
                             if (substitution.isFalse(global)) {
                                 return falsify(substitution, equalities, disjunctions, equality, null,
                                         logFormulaFalsify);
@@ -556,9 +608,124 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
                 }
             } while (change);
 
-            return ConjunctiveFormula.of(substitution, equalities, disjunctions, global);
+            if (index == null) {
+                return ConjunctiveFormula.of(substitution, equalities, disjunctions, global);
+            }
+            //Every remaining equality was normalized against the final substitution in the last pass.
+            return new ConjunctiveFormula(
+                    substitution,
+                    equalities,
+                    disjunctions,
+                    substitution.isEmpty() && equalities.isEmpty() && disjunctions.isEmpty()
+                    ? TruthValue.TRUE
+                    : TruthValue.UNKNOWN,
+                    null,
+                    global,
+                    new Normalization(substitution, equalities, patternFolding, partialSimplification,
+                            rhsOnlyVariables));
         } finally {
             context.setTopConstraint(originalTopConstraint);
+            if (index != null) {
+                global.profiler.formulaSimplificationStats.record(index.normalizedCount, index.skippedCount);
+            }
+        }
+    }
+
+    /**
+     * The equalities of a formula known to be normalized against a substitution, with the options of the
+     * simplification that normalized them. Carried over by {@link #add(Equality)} and
+     * {@link #add(DisjunctiveFormula)}, which keep the substitution, so that the next simplification only normalizes
+     * the new equalities and those mentioning variables they bind.
+     * <p>
+     * Normalization may also depend on the path condition used to evaluate functions with side conditions. A stale
+     * normalization is still equivalent to the original equality, so reusing it can only leave an equality less
+     * simplified, never change the meaning of the formula.
+     */
+    private static final class Normalization {
+        final Substitution<Variable, Term> substitution;
+        final PersistentUniqueList<Equality> equalities;
+        final boolean patternFolding;
+        final boolean partialSimplification;
+        final Set<Variable> rhsOnlyVariables;
+
+        Normalization(Substitution<Variable, Term> substitution, PersistentUniqueList<Equality> equalities,
+                      boolean patternFolding, boolean partialSimplification, Set<Variable> rhsOnlyVariables) {
+            this.substitution = substitution;
+            this.equalities = equalities;
+            this.patternFolding = patternFolding;
+            this.partialSimplification = partialSimplification;
+            this.rhsOnlyVariables = ImmutableSet.copyOf(rhsOnlyVariables);
+        }
+
+        boolean isValidFor(Substitution<Variable, Term> substitution, boolean patternFolding,
+                           boolean partialSimplification, Set<Variable> rhsOnlyVariables) {
+            return this.substitution == substitution
+                    && this.patternFolding == patternFolding
+                    && this.partialSimplification == partialSimplification
+                    && this.rhsOnlyVariables.equals(rhsOnlyVariables);
+        }
+    }
+
+    /**
+     * Tracks the version of the substitution each equality was last normalized against and the version that bound
+     * each variable. An equality is up to date if none of its variables was bound since it was last normalized, in
+     * which case normalizing it again would not change it. Equalities normalized by a previous simplification of the
+     * formula count as normalized against the initial version.
+     */
+    private static final class NormalizationIndex {
+        private final Map<Variable, Integer> boundAt = new HashMap<>();
+        private final Map<Equality, Integer> normalizedAt = new HashMap<>();
+        private final PersistentUniqueList<Equality> previouslyNormalized;
+        private int version = 0;
+        private int normalizedCount = 0;
+        private int skippedCount = 0;
+
+        NormalizationIndex(PersistentUniqueList<Equality> previouslyNormalized) {
+            this.previouslyNormalized = previouslyNormalized;
+        }
+
+        void bind(Set<Variable> variables) {
+            version++;
+            for (Variable variable : variables) {
+                boundAt.put(variable, version);
+            }
+        }
+
+        void normalized(Equality equality) {
+            normalizedAt.put(equality, version);
+        }
+
+        /**
+         * Same as {@link #isUpToDate(Equality)}, and counts the equality as skipped or normalized.
+         */
+        boolean skip(Equality equality) {
+            boolean upToDate = isUpToDate(equality);
+            if (upToDate) {
+                skippedCount++;
+            } else {
+                normalizedCount++;
+            }
+            return upToDate;
+        }
+
+        boolean isUpToDate(Equality equality) {
+            Integer normalizedVersion = normalizedAt.get(equality);
+            if (normalizedVersion == null && previouslyNormalized.contains(equality)) {
+                normalizedVersion = 0;
+            }
+            return normalizedVersion != null
+                    && isUpToDate(equality.leftHandSide(), normalizedVersion)
+                    && isUpToDate(equality.rightHandSide(), normalizedVersion);
+        }
+
+        private boolean isUpToDate(Term term, int normalizedVersion) {
+            for (Variable variable : term.variableSet()) {
+                Integer boundVersion = boundAt.get(variable);
+                if (boundVersion != null && boundVersion > normalizedVersion) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
@@ -1017,6 +1184,13 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
 
     private static final Map<Triple<ConjunctiveFormula, ConjunctiveFormula, Set<Variable>>, Boolean> impliesSMTCache = Collections.synchronizedMap(new HashMap<>());
 
+    /**
+     * For {@code --cache-implication-cores}: for each right-hand side and set of existentially quantified variables,
+     * the sets of left-hand side equalities that were enough to prove it. Any left-hand side that contains one of
+     * these sets implies the right-hand side too.
+     */
+    private static final Map<Pair<ConjunctiveFormula, Set<Variable>>, List<Set<Equality>>> implicationCores = new ConcurrentHashMap<>();
+
     /**
      * Checks if {@code left} implies {@code right}, assuming that {@code existentialQuantVars}
      * are existentially quantified.
@@ -1032,8 +1206,10 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
             Triple<ConjunctiveFormula, ConjunctiveFormula, Set<Variable>> triple = Triple.of(left, right, existentialQuantVars);
             boolean cached = true;
             if (!impliesSMTCache.containsKey(triple)) {
-                impliesSMTCache.put(triple,
-                        left.global.constraintOps.impliesSMT(left, right, existentialQuantVars, formulaContext));
+                impliesSMTCache.put(triple, left.global.javaExecutionOptions.cacheImplicationCores
+                                            ? impliesSMTWithCores(left, right, existentialQuantVars, formulaContext)
+                                            : left.global.constraintOps.impliesSMT(left, right, existentialQuantVars,
+                                                    formulaContext));
                 cached = false;
             }
             Boolean result = impliesSMTCache.get(triple);
@@ -1047,6 +1223,35 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
         }
     }
 
+    private static boolean impliesSMTWithCores(
+            ConjunctiveFormula left,
+            ConjunctiveFormula right,
+            Set<Variable> existentialQuantVars,
+            FormulaContext formulaContext) {
+        CacheStats stats = left.global.profiler.implicationCoreCacheStats;
+        Pair<ConjunctiveFormula, Set<Variable>> key = Pair.of(right, existentialQuantVars);
+        List<Set<Equality>> cores = implicationCores.get(key);
+        if (cores != null) {
+            Set<Equality> hypotheses = new HashSet<>(left.equalities());
+            for (Set<Equality> core : cores) {
+                if (hypotheses.containsAll(core)) {
+                    stats.hit();
+                    return true;
+                }
+            }
+        }
+        stats.miss();
+
+        List<Equality> core = left.global.constraintOps.impliesSMTCore(left, right, existentialQuantVars,
+                formulaContext);
+        if (core == null) {
+            return false;
+        }
+        implicationCores.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(ImmutableSet.copyOf(core));
+        stats.store();
+        return true;
+    }
+
     public boolean hasMapEqualities() {
         for (Equality equality : equalities) {
             if (equality.leftHandSide() instanceof BuiltinMap
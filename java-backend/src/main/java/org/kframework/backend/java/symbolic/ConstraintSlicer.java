@@ -0,0 +1,194 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.kframework.backend.java.builtins.BitVector;
+import org.kframework.backend.java.builtins.BoolToken;
+import org.kframework.backend.java.builtins.FloatToken;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.BuiltinList;
+import org.kframework.backend.java.kil.BuiltinMap;
+import org.kframework.backend.java.kil.BuiltinSet;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.Variable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits constraints into slices that share no atoms, for {@link SMTOperations}. A constraint is unsatisfiable iff
+ * one of its slices is.
+ * <p>
+ * Atoms are variables, and the ground terms that {@link KILtoSMTLib} may abstract, since it abstracts equal terms by
+ * the same SMT variable: applications of labels without an SMT-LIB translation, builtin collections, and whole sides
+ * of equalities, which are abstracted when their translation fails. Literals of the SMT theories are not atoms.
+ */
+public class ConstraintSlicer {
+
+    private final ConjunctiveFormula constraint;
+    /**
+     * The conjuncts of the constraint: substitution entries as variables, equalities and disjunctions.
+     */
+    private final List<Object> conjuncts = new ArrayList<>();
+    private final List<Set<Term>> conjunctAtoms = new ArrayList<>();
+    private final int[] parent;
+
+    private ConstraintSlicer(ConjunctiveFormula constraint) {
+        this.constraint = constraint;
+        conjuncts.addAll(constraint.substitution().keySet());
+        conjuncts.addAll(constraint.equalities());
+        conjuncts.addAll(constraint.disjunctions());
+        parent = new int[conjuncts.size()];
+        Map<Term, Integer> atomOwners = new HashMap<>();
+        for (int i = 0; i < conjuncts.size(); i++) {
+            parent[i] = i;
+            conjunctAtoms.add(atoms(conjunctTerms(conjuncts.get(i))));
+            for (Term atom : conjunctAtoms.get(i)) {
+                Integer owner = atomOwners.putIfAbsent(atom, i);
+                if (owner != null) {
+                    union(owner, i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the slices of the constraint, in the order of their first conjunct.
+     */
+    public static List<ConjunctiveFormula> slices(ConjunctiveFormula constraint) {
+        ConstraintSlicer slicer = new ConstraintSlicer(constraint);
+        Map<Integer, List<Object>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < slicer.conjuncts.size(); i++) {
+            groups.computeIfAbsent(slicer.find(i), k -> new ArrayList<>()).add(slicer.conjuncts.get(i));
+        }
+        List<ConjunctiveFormula> result = new ArrayList<>();
+        for (List<Object> group : groups.values()) {
+            result.add(slicer.formula(group));
+        }
+        return result;
+    }
+
+    /**
+     * @return the conjunction of the slices of the constraint that share atoms with the given term.
+     */
+    public static ConjunctiveFormula relevantSlice(ConjunctiveFormula constraint, Term term) {
+        ConstraintSlicer slicer = new ConstraintSlicer(constraint);
+        Set<Term> termAtoms = atoms(new Term[]{term});
+        Set<Integer> relevantRoots = new HashSet<>();
+        for (int i = 0; i < slicer.conjuncts.size(); i++) {
+            for (Term atom : slicer.conjunctAtoms.get(i)) {
+                if (termAtoms.contains(atom)) {
+                    relevantRoots.add(slicer.find(i));
+                    break;
+                }
+            }
+        }
+        List<Object> relevant = new ArrayList<>();
+        for (int i = 0; i < slicer.conjuncts.size(); i++) {
+            if (relevantRoots.contains(slicer.find(i))) {
+                relevant.add(slicer.conjuncts.get(i));
+            }
+        }
+        return relevant.size() == slicer.conjuncts.size() ? constraint : slicer.formula(relevant);
+    }
+
+    private Term[] conjunctTerms(Object conjunct) {
+        if (conjunct instanceof Variable) {
+            return new Term[]{(Variable) conjunct, constraint.substitution().get(conjunct)};
+        } else if (conjunct instanceof Equality) {
+            return new Term[]{((Equality) conjunct).leftHandSide(), ((Equality) conjunct).rightHandSide()};
+        } else {
+            return new Term[]{(DisjunctiveFormula) conjunct};
+        }
+    }
+
+    private ConjunctiveFormula formula(List<Object> group) {
+        Set<Variable> substitutionKeys = new HashSet<>();
+        PersistentUniqueList<Equality> equalities = PersistentUniqueList.empty();
+        PersistentUniqueList<DisjunctiveFormula> disjunctions = PersistentUniqueList.empty();
+        for (Object conjunct : group) {
+            if (conjunct instanceof Variable) {
+                substitutionKeys.add((Variable) conjunct);
+            } else if (conjunct instanceof Equality) {
+                equalities = equalities.plus((Equality) conjunct);
+            } else {
+                disjunctions = disjunctions.plus((DisjunctiveFormula) conjunct);
+            }
+        }
+        return ConjunctiveFormula.of(constraint.substitution().retainAll(substitutionKeys), equalities, disjunctions,
+                constraint.globalContext());
+    }
+
+    private int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private void union(int i, int j) {
+        parent[find(i)] = find(j);
+    }
+
+    static Set<Term> atoms(Term[] terms) {
+        Set<Term> atoms = new HashSet<>();
+        BottomUpVisitor visitor = new BottomUpVisitor() {
+            @Override
+            public void visit(KItem kItem) {
+                if (!(kItem.kLabel() instanceof KLabelConstant && ((KLabelConstant) kItem.kLabel()).smtlib() != null)
+                        && kItem.isGround()) {
+                    atoms.add(kItem);
+                }
+                super.visit(kItem);
+            }
+
+            @Override
+            public void visit(BuiltinList builtinList) {
+                addIfGround(builtinList);
+                super.visit(builtinList);
+            }
+
+            @Override
+            public void visit(BuiltinMap builtinMap) {
+                addIfGround(builtinMap);
+                super.visit(builtinMap);
+            }
+
+            @Override
+            public void visit(BuiltinSet builtinSet) {
+                addIfGround(builtinSet);
+                super.visit(builtinSet);
+            }
+
+            @Override
+            public void visit(Variable variable) {
+                atoms.add(variable);
+            }
+
+            private void addIfGround(Term term) {
+                if (term.isGround()) {
+                    atoms.add(term);
+                }
+            }
+        };
+        for (Term term : terms) {
+            if (term.isGround() && !isLiteral(term)) {
+                atoms.add(term);
+            }
+            term.accept(visitor);
+        }
+        return atoms;
+    }
+
+    private static boolean isLiteral(Term term) {
+        return term instanceof BoolToken || term instanceof IntToken || term instanceof FloatToken
+                || term instanceof BitVector;
+    }
+}
@@ -0,0 +1,94 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.definition.Module;
+import org.kframework.utils.BinaryLoader;
+import org.kframework.utils.errorsystem.KException.ExceptionType;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+
+import java.io.File;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+
+import static org.kframework.Collections.*;
+
+/**
+ * The initialized backend {@link Definition} of a module, including its rule table and automata, saved in the
+ * kompiled directory with {@code --cache-definition}. Later runs on the same kompiled definition deserialize it
+ * instead of converting the rules again.
+ * <p>
+ * A snapshot is only used for a module with the same name and sentences, compared by a SHA-256 digest of their
+ * sorted string representations, and is discarded once the definition is kompiled again. The definition is kept
+ * serialized in the snapshot, so that it is only resolved against the sorts and labels of this process once the
+ * snapshot is known to match the module.
+ */
+public class DefinitionSnapshot implements Serializable {
+
+    private static final String FILE_NAME = "java-definition.bin";
+
+    private final String moduleName;
+    private final String moduleHash;
+    private final byte[] definition;
+
+    private DefinitionSnapshot(String moduleName, String moduleHash, byte[] definition) {
+        this.moduleName = moduleName;
+        this.moduleHash = moduleHash;
+        this.definition = definition;
+    }
+
+    /**
+     * @return the definition of the module saved by a previous run, attached to the given context, or null if there
+     * is no up-to-date snapshot of the module.
+     */
+    public static Definition load(Module module, GlobalContext global, BinaryLoader loader, FileUtil files,
+                                  KExceptionManager kem) {
+        File file = files.resolveKompiled(FILE_NAME);
+        if (!file.exists() || file.lastModified() < files.resolveKompiled("timestamp").lastModified()) {
+            return null;
+        }
+        DefinitionSnapshot snapshot = loader.loadCache(DefinitionSnapshot.class, file);
+        if (snapshot == null || !snapshot.moduleName.equals(module.name()) || !snapshot.moduleHash.equals(hash(module))) {
+            return null;
+        }
+        Definition definition;
+        try {
+            definition = global.deserialize(() -> loader.deserialize(Definition.class, snapshot.definition));
+            // DISABLE EXCEPTION CHECKSTYLE
+        } catch (RuntimeException e) {
+            // ENABLE EXCEPTION CHECKSTYLE
+            //e.g. the sorts and labels created by this process before loading conflict with the snapshot
+            kem.registerInternalWarning(ExceptionType.INVALIDATED_CACHE,
+                    "Invalidating definition snapshot which does not match this process.", e);
+            return null;
+        }
+        definition.setKem(kem);
+        global.setDefinition(definition);
+        return definition;
+    }
+
+    public static void save(Module module, Definition definition, BinaryLoader loader, FileUtil files) {
+        loader.saveOrDie(files.resolveKompiled(FILE_NAME), new DefinitionSnapshot(module.name(), hash(module),
+                loader.serialize(definition)));
+    }
+
+    private static String hash(Module module) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Iterator<String> sentences = stream(module.sentences()).map(Object::toString).sorted().iterator();
+            while (sentences.hasNext()) {
+                digest.update(sentences.next().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return String.format("%064x", new BigInteger(1, digest.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.kframework.backend.java.kil.KLabelConstant;
 import org.kframework.backend.java.kil.KList;
 import org.kframework.backend.java.kil.LocalRewriteTerm;
 import org.kframework.backend.java.kil.Rule;
+import org.kframework.backend.java.kil.RuleIndex;
 import org.kframework.backend.java.kil.RuleAutomatonDisjunction;
 import org.kframework.backend.java.kil.Term;
 import org.kframework.backend.java.kil.TermContext;
@@ -196,10 +197,14 @@ public class FastRuleMatcher {
      * @return rules matching the subject
      */
     public List<Pair<Rule, Integer>> matchWithAutomaton(ConstrainedTerm subject, Rule automaton) {
-        ruleMask.stream().forEach(i -> constraints[i] = ConjunctiveFormula.of(subject.termContext().global()));
+        BitSet candidateRules = candidateRules(subject);
+        if (candidateRules.isEmpty()) {
+            return Collections.emptyList();
+        }
+        candidateRules.stream().forEach(i -> constraints[i] = ConjunctiveFormula.of(subject.termContext().global()));
         empty = BitSet.apply(ruleCount);
         BitSet matchingRuleBits =
-                matchAndLog(subject.term(), automaton.leftHandSide(), ruleMask, List(), false);
+                matchAndLog(subject.term(), automaton.leftHandSide(), candidateRules, List(), false);
 
         List<Pair<Rule, Integer>> result = new ArrayList<>();
         for (int i = matchingRuleBits.nextSetBit(0); i >= 0; i = matchingRuleBits.nextSetBit(i + 1)) {
@@ -208,6 +213,26 @@ public class FastRuleMatcher {
         return result;
     }
 
+    /**
+     * @return the rules that may match the subject according to the {@link RuleIndex} of the definition, or all rules
+     * if rule indexing is disabled.
+     */
+    private BitSet candidateRules(ConstrainedTerm subject) {
+        if (!global.javaExecutionOptions.indexRules) {
+            return ruleMask;
+        }
+        RuleIndex ruleIndex = definition.ruleIndex();
+        if (ruleIndex.ruleCount() != ruleCount) {
+            return ruleMask;
+        }
+        BitSet candidateRules = ruleIndex.candidates(subject.term());
+        global.profiler.ruleIndexStats.record(candidateRules.cardinality(), ruleCount);
+        if (global.javaExecutionOptions.logRulesPublic) {
+            System.err.format("\nRule index: %d candidate rules of %d\n", candidateRules.cardinality(), ruleCount);
+        }
+        return candidateRules;
+    }
+
     public static class RuleMatchResult {
         public final ConjunctiveFormula constraint;
         public final boolean isMatching;
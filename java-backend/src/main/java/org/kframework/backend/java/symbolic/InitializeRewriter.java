@@ -35,6 +35,7 @@ import org.kframework.main.GlobalOptions;
 import org.kframework.rewriter.Rewriter;
 import org.kframework.rewriter.SearchType;
 import org.kframework.unparser.KPrint;
+import org.kframework.utils.BinaryLoader;
 import org.kframework.utils.errorsystem.KEMException;
 import org.kframework.utils.errorsystem.KExceptionManager;
 import org.kframework.utils.file.FileUtil;
@@ -50,6 +51,8 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -75,6 +78,7 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
     private final KPrint kprint;
     private final Profiler2 profiler;
     private final JavaExecutionOptions javaExecutionOptions;
+    private final BinaryLoader loader;
 
     @Inject
     public InitializeRewriter(
@@ -89,7 +93,8 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
             FileUtil files,
             InitializeDefinition initializeDefinition,
             KPrint kprint,
-            Profiler2 profiler) {
+            Profiler2 profiler,
+            BinaryLoader loader) {
         this.fs = fs;
         this.globalOptions = globalOptions;
         this.kem = kem;
@@ -104,6 +109,7 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
         this.initializeDefinition = initializeDefinition;
         this.kprint = kprint;
         this.profiler = profiler;
+        this.loader = loader;
         chainOptions();
     }
 
@@ -118,13 +124,25 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
     @Override
     public synchronized Rewriter apply(org.kframework.definition.Definition def) {
         GlobalContext initializingContext = newGlobalContext(def, Stage.INITIALIZING);
-        Definition definition = initializeDefinition.invoke(def.mainModule(), kem, initializingContext);
+        Definition definition = loadOrInitializeDefinition(def.mainModule(), initializingContext);
         GlobalContext rewritingContext = newGlobalContext(def, Stage.REWRITING);
         rewritingContext.setDefinition(definition);
 
         return new SymbolicRewriterGlue(definition, def.mainModule(), rewritingContext);
     }
 
+    private Definition loadOrInitializeDefinition(Module module, GlobalContext initializingContext) {
+        if (!javaExecutionOptions.cacheDefinition) {
+            return initializeDefinition.invoke(module, kem, initializingContext);
+        }
+        Definition definition = DefinitionSnapshot.load(module, initializingContext, loader, files, kem);
+        if (definition == null) {
+            definition = initializeDefinition.invoke(module, kem, initializingContext);
+            DefinitionSnapshot.save(module, definition, loader, files);
+        }
+        return definition;
+    }
+
     public GlobalContext newGlobalContext(org.kframework.definition.Definition def, Stage stage) {
         return new GlobalContext(fs, globalOptions, krunOptions, kproveOptions, javaExecutionOptions, kem, smtOptions,
                 hookProvider, files, stage, profiler, kprint, def);
@@ -236,30 +254,55 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
             }
 
             rewritingContext.setExecutionPhase(true);
-            List<ConstrainedTerm> proofResults = proofObligationRules.stream()
+            List<org.kframework.backend.java.kil.Rule> claims = proofObligationRules.stream()
                     .filter(r -> !r.att().contains(Att.TRUSTED()))
-                    .map(r -> {
-                        //Build LHS with fully evaluated constraint. Then expand patterns.
-                        ConjunctiveFormula constraint = processProofRules.getEvaluatedConstraint(r);
-                        ConstrainedTerm lhs = new ConstrainedTerm(r.leftHandSide(), constraint, termContext);
-                        termContext.setTopConstraint(constraint);
-                        lhs = lhs.expandPatterns(true);
-
-                        //Build RHS with fully evaluated ensures. RHS term is already evaluated.
-                        ConjunctiveFormula ensures = (ConjunctiveFormula) processProofRules.evaluate(
-                                ConjunctiveFormula.of(termContext.global()).addAll(r.ensures()), constraint, termContext);
-                        ConstrainedTerm rhs = new ConstrainedTerm(
-                                r.rightHandSide(), ensures, TermContext.builder(termContext.global()).build());
-
-                        termContext.setInitialLhsVariables(lhs.variableSet());
-                        termContext.setTopConstraint(null);
-                        if (rewritingContext.javaExecutionOptions.cacheFunctionsOptimized) {
-                            rewritingContext.functionCache.clear();
-                        }
-                        rewritingContext.stateLog.log(StateLog.LogEvent.REACHINIT,   lhs.term(), lhs.constraint());
-                        rewritingContext.stateLog.log(StateLog.LogEvent.REACHTARGET, rhs.term(), rhs.constraint());
-                        return rewriter.proveRule(r, lhs, rhs, kem, javaBoundaryPattern);
-                    })
+                    .collect(Collectors.toList());
+            List<ClaimResult> claimResults;
+            if (javaExecutionOptions.parallelClaims > 1) {
+                //Each claim gets its own rewriter and term context. Definition and global caches are shared.
+                //The function cache is shared too, so it is only cleared once, before any claim runs.
+                if (javaExecutionOptions.cacheFunctionsOptimized) {
+                    rewritingContext.functionCache.clear();
+                }
+                ForkJoinPool claimPool = new ForkJoinPool(javaExecutionOptions.parallelClaims);
+                try {
+                    claimResults = claimPool.submit(() -> claims.parallelStream()
+                            .map(r -> proveClaim(r, processProofRules, termContext.fork(),
+                                    new SymbolicRewriter(rewritingContext, transitions, converter),
+                                    javaBoundaryPattern, false))
+                            .collect(Collectors.toList()))
+                            .get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw KEMException.criticalError("Thread interrupted");
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    throw KEMException.criticalError("Exception while proving claims", e.getCause());
+                } finally {
+                    claimPool.shutdown();
+                }
+            } else {
+                claimResults = claims.stream()
+                        .map(r -> proveClaim(r, processProofRules, termContext, rewriter, javaBoundaryPattern,
+                                javaExecutionOptions.cacheFunctionsOptimized))
+                        .collect(Collectors.toList());
+            }
+            if (javaExecutionOptions.parallelClaims > 1 || globalOptions.verbose) {
+                System.err.println("\nClaims:");
+                for (ClaimResult claimResult : claimResults) {
+                    System.err.format("  %s %s: %8.3f s, %s\n",
+                            claimResult.claim.getSource(), claimResult.claim.getLocation(),
+                            claimResult.durationNano / 1000000000.0,
+                            claimResult.results.isEmpty() ? "proved" : claimResult.results.size() + " failed path(s)");
+                }
+            }
+            List<ConstrainedTerm> proofResults = claimResults.stream()
+                    .map(claimResult -> claimResult.results)
                     .flatMap(List::stream)
                     .collect(Collectors.toList());
 
@@ -281,6 +324,34 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
             return new RewriterResult(Optional.empty(), Optional.of(exit), result);
         }
 
+        private ClaimResult proveClaim(org.kframework.backend.java.kil.Rule r, ProcessProofRules processProofRules,
+                                       TermContext termContext, SymbolicRewriter rewriter,
+                                       org.kframework.backend.java.kil.Rule javaBoundaryPattern,
+                                       boolean clearFunctionCache) {
+            long startNano = System.nanoTime();
+            //Build LHS with fully evaluated constraint. Then expand patterns.
+            ConjunctiveFormula constraint = processProofRules.getEvaluatedConstraint(r, termContext);
+            ConstrainedTerm lhs = new ConstrainedTerm(r.leftHandSide(), constraint, termContext);
+            termContext.setTopConstraint(constraint);
+            lhs = lhs.expandPatterns(true);
+
+            //Build RHS with fully evaluated ensures. RHS term is already evaluated.
+            ConjunctiveFormula ensures = (ConjunctiveFormula) processProofRules.evaluate(
+                    ConjunctiveFormula.of(termContext.global()).addAll(r.ensures()), constraint, termContext);
+            ConstrainedTerm rhs = new ConstrainedTerm(
+                    r.rightHandSide(), ensures, TermContext.builder(termContext.global()).build());
+
+            termContext.setInitialLhsVariables(lhs.variableSet());
+            termContext.setTopConstraint(null);
+            if (clearFunctionCache) {
+                rewritingContext.functionCache.clear();
+            }
+            rewritingContext.stateLog.log(StateLog.LogEvent.REACHINIT,   lhs.term(), lhs.constraint());
+            rewritingContext.stateLog.log(StateLog.LogEvent.REACHTARGET, rhs.term(), rhs.constraint());
+            List<ConstrainedTerm> results = rewriter.proveRule(r, lhs, rhs, kem, javaBoundaryPattern);
+            return new ClaimResult(r, results, System.nanoTime() - startNano);
+        }
+
         @Override
         public RewriterResult bmc(Module mod) {
             throw new UnsupportedOperationException();
@@ -392,6 +463,11 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
             }
 
             private ConjunctiveFormula getEvaluatedConstraint(org.kframework.backend.java.kil.Rule rule) {
+                return getEvaluatedConstraint(rule, termContext);
+            }
+
+            private ConjunctiveFormula getEvaluatedConstraint(org.kframework.backend.java.kil.Rule rule,
+                                                              TermContext termContext) {
                 termContext.setTopConstraint(null);
                 //We need this ConsTerm only to evaluate the constraint. That's why we use an empty first argument.
                 ConstrainedTerm constraintHolder = new ConstrainedTerm(
@@ -413,6 +489,18 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
         }
     }
 
+    private static class ClaimResult {
+        final org.kframework.backend.java.kil.Rule claim;
+        final List<ConstrainedTerm> results;
+        final long durationNano;
+
+        ClaimResult(org.kframework.backend.java.kil.Rule claim, List<ConstrainedTerm> results, long durationNano) {
+            this.claim = claim;
+            this.results = results;
+            this.durationNano = durationNano;
+        }
+    }
+
     static class EquivalenceState {
         final List<ConstrainedTerm> startSyncNodes;
         final List<ConstrainedTerm> targetSyncNodes;
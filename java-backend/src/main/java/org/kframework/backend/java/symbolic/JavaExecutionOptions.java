@@ -2,6 +2,7 @@
 package org.kframework.backend.java.symbolic;
 
 import com.beust.jcommander.Parameter;
+import org.kframework.backend.java.strategies.SearchStrategy;
 import org.kframework.backend.java.util.StateLog;
 import org.kframework.utils.inject.RequestScoped;
 import org.kframework.utils.options.BaseEnumConverter;
@@ -47,6 +48,14 @@ public final class JavaExecutionOptions {
     @Parameter(names={"--state-log-events"}, converter=LogEventConverter.class, description="Comma-separated list of events to log: [OPEN|REACHINIT|REACHTARGET|REACHPROVED|REACHUNPROVED|EXECINIT|SEARCHINIT|SEARCHREACH|NODE|RULE|SRULE|RULEATTEMPT|SRULEATTEMPT|CHECKINGCONSTRAINT|IMPLICATION|Z3QUERY|Z3RESULT|CLOSE]")
     public List<StateLog.LogEvent> stateLogEvents = Collections.emptyList();
 
+    @Parameter(names={"--state-log-buffer-size"}, description="Number of events the state log buffers before " +
+            "the execution waits for them to be written.")
+    public int stateLogBufferSize = 4096;
+
+    @Parameter(names={"--state-log-blob-files"}, description="Write each term of the state log to its own file " +
+            "in <id>_blobs/, instead of a single <id>_blobs.bin container.")
+    public boolean stateLogBlobFiles = false;
+
     @Parameter(names="--cache-func", description="Cache evaluation results of pure functions. Enabled by default.", arity = 1)
     public boolean cacheFunctions = true;
 
@@ -54,14 +63,97 @@ public final class JavaExecutionOptions {
             description="Clear function cache after initialization phase. Frees some memory. Use IN ADDITION to --cache-func")
     public boolean cacheFunctionsOptimized = false;
 
+    @Parameter(names="--cache-func-max-entries", description="Maximum number of entries in the function cache. " +
+            "Least recently used entries are evicted when it is full. 0 means unbounded.")
+    public long cacheFunctionsMaxEntries = 0;
+
+    @Parameter(names="--intern-terms", description="Share one instance between equal ground terms built from the " +
+            "definition and by rewriting, making comparisons between them cheaper.")
+    public boolean internTerms = false;
+
+    @Parameter(names="--search-fingerprints", description="Remember the states visited by search by their 128-bit " +
+            "fingerprints instead of the states themselves. Uses much less memory, at a negligible risk of " +
+            "skipping a state whose fingerprint collides with a visited one.")
+    public boolean searchFingerprints = false;
+
+    @Parameter(names="--search-fingerprints-off-heap", description="Keep the fingerprints of visited states " +
+            "outside of the Java heap. Use IN ADDITION to --search-fingerprints")
+    public boolean searchFingerprintsOffHeap = false;
+
+    @Parameter(names="--search-verify-fingerprints", description="Also remember the visited states themselves and " +
+            "report fingerprint collisions. Use IN ADDITION to --search-fingerprints")
+    public boolean searchVerifyFingerprints = false;
+
+    @Parameter(names="--search-strategy", converter=SearchStrategyConverter.class, description="Order in which " +
+            "krun --search explores states: [bfs|dfs|iterative-deepening|best-first]. Default is bfs. dfs and " +
+            "iterative-deepening only keep the current path in memory, best-first requires --search-heuristic-cell.")
+    public SearchStrategy searchStrategy = SearchStrategy.BFS;
+
+    @Parameter(names="--search-heuristic-cell", description="Cell holding an Int heuristic value for " +
+            "--search-strategy best-first, e.g. <distance>. States with smaller values are explored first.")
+    public String searchHeuristicCell;
+
+    @Parameter(names="--search-max-frontier", description="Maximum number of states kept by " +
+            "--search-strategy best-first. States with the largest heuristic values are dropped when the frontier " +
+            "is full. 0 means unbounded.")
+    public int searchMaxFrontier = 0;
+
     @Parameter(names="--cache-formulas", description="Cache results of ConjunctiveFormula.simplify().")
     public boolean cacheFormulas = false;
 
+    @Parameter(names="--cache-formulas-max-entries", description="Maximal number of entries kept in memory by " +
+            "--cache-formulas. Least recently used entries are evicted first. Default is 0, for no limit.")
+    public long cacheFormulasMaxEntries = 0;
+
+    @Parameter(names="--cache-formulas-persist", description="With --cache-formulas, also remember simplifications " +
+            "that result in true or false in the kompiled directory, to be reused by later runs on the same " +
+            "definition.")
+    public boolean cacheFormulasPersist = false;
+
+    @Parameter(names="--cache-smtlib", description="Cache the SMTLib translation of the definition and of the " +
+            "terms in constraints, so that SMT queries are built from cached fragments.")
+    public boolean cacheSmtlib = false;
+
+    @Parameter(names="--cache-definition", description="Save the initialized backend definition, with its rule " +
+            "automata, in the kompiled directory, and load it in later runs instead of converting the rules again. " +
+            "Meant for running many programs on the same definition.")
+    public boolean cacheDefinition = false;
+
+    @Parameter(names="--cache-implication-cores", description="Ask Z3 for the unsat cores of proved " +
+            "implications, and prove later implications with the same right-hand side without calling Z3 if their " +
+            "left-hand side contains a known core.")
+    public boolean cacheImplicationCores = false;
+
+    @Parameter(names="--smt-slicing", description="Split constraints into slices that share no variables before " +
+            "sending them to the SMT solver. Satisfiability of each slice is checked and cached separately, and " +
+            "implications only keep the slices of the left-hand side that are relevant to the right-hand side.")
+    public boolean smtSlicing = false;
+
+    @Parameter(names="--smt-slice-cache-size", description="Maximal number of slices whose satisfiability is " +
+            "cached by --smt-slicing.")
+    public long smtSliceCacheSize = 100000;
+
     @Parameter(names="--cache-tostring",
             description="Cache toString() result for KItem, Equality and DisjunctiveFormula. " +
                     "Speeds up logging but eats more memory.", arity = 1)
     public boolean cacheToString = true;
 
+    @Parameter(names="--compile-rhs", description="Build right-hand sides and side conditions of function rules " +
+            "with lambdas compiled from the rules once, instead of interpreting their instructions at each " +
+            "application.")
+    public boolean compileRHS = false;
+
+    @Parameter(names="--index-rules", description="Narrow the rules tried at each step with an index of the rules " +
+            "by the heads of the contents of their cells, e.g. the first item of <k>. The average number of " +
+            "candidate rules per step is printed in the execution summary.")
+    public boolean indexRules = false;
+
+    @Parameter(names="--simplify-incrementally", description="When simplifying a formula, re-normalize only the " +
+            "equalities that mention variables bound since they were last normalized, instead of all equalities " +
+            "after each new binding. Equalities normalized by a previous simplification are not normalized again " +
+            "when the formula is extended with new equalities.")
+    public boolean simplifyIncrementally = false;
+
     @Parameter(names="--format-failures", description="Format failure final states. By default they are printed all " +
             "on one line, using ConstrainedTerm.toString(). If option is enabled, they are printed a bit nicer, " +
             "using custom ConjunctiveFormula formatter, but still fast. Disabled by default for output compatibility " +
@@ -71,6 +163,17 @@ public final class JavaExecutionOptions {
     @Parameter(names="--branching-allowed", arity=1, description="Number of branching events allowed before a forcible stop.")
     public int branchingAllowed = Integer.MAX_VALUE;
 
+    @Parameter(names="--parallel-frontier", description="Number of threads used by kprove to explore the " +
+            "independent paths of a proof in parallel, and by krun --search to expand the states of a search " +
+            "layer in parallel. Default is 1, which explores paths one by one. " +
+            "With more threads, fresh values are generated per path, and logs of different paths may interleave.")
+    public int parallelFrontier = 1;
+
+    @Parameter(names="--parallel-claims", description="Number of claims of a specification module kprove " +
+            "proves concurrently. Each claim is proved by its own rewriter, sharing the definition and caches. " +
+            "Default is 1. With more than 1, the proof time of each claim is printed at the end.")
+    public int parallelClaims = 1;
+
     @Parameter(names="--log", description="Log every step.")
     public boolean log = false;
 
@@ -152,6 +255,18 @@ public final class JavaExecutionOptions {
     @Parameter(names="--skip-invoking-backend", description="Skip invoking the Java Backend.")
     public boolean skipInvokingBackend = false;
 
+    public static class SearchStrategyConverter extends BaseEnumConverter<SearchStrategy> {
+
+        public SearchStrategyConverter(String optionName) {
+            super(optionName);
+        }
+
+        @Override
+        public Class<SearchStrategy> enumClass() {
+            return SearchStrategy.class;
+        }
+    }
+
     public static class LogEventConverter extends BaseEnumConverter<StateLog.LogEvent> {
 
         public LogEventConverter(String optionName) {
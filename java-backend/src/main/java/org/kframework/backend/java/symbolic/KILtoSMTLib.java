@@ -198,6 +198,34 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
             ConjunctiveFormula leftHandSide,
             ConjunctiveFormula rightHandSide,
             Set<Variable> existentialQuantVars) {
+        return translateImplication(leftHandSide, rightHandSide, existentialQuantVars, false);
+    }
+
+    /**
+     * Same as {@link #translateImplication(ConjunctiveFormula, ConjunctiveFormula, Set)}, but each equality of
+     * {@code leftHandSide} is asserted separately and named by {@link #hypothesisName}, so that Z3 can report the
+     * equalities used by the proof in an unsat core.
+     */
+    public static CharSequence translateImplicationWithNamedHypotheses(
+            ConjunctiveFormula leftHandSide,
+            ConjunctiveFormula rightHandSide,
+            Set<Variable> existentialQuantVars) {
+        return translateImplication(leftHandSide, rightHandSide, existentialQuantVars, true);
+    }
+
+    /**
+     * @return the name of the assertion of the equality with the given index in the left-hand side of an
+     * implication. Not a valid K variable name, so it cannot clash with variables in the query.
+     */
+    public static String hypothesisName(int index) {
+        return "@h" + index;
+    }
+
+    private static CharSequence translateImplication(
+            ConjunctiveFormula leftHandSide,
+            ConjunctiveFormula rightHandSide,
+            Set<Variable> existentialQuantVars,
+            boolean nameHypotheses) {
         KILtoSMTLib leftTransformer = new KILtoSMTLib(true, leftHandSide.globalContext());
         // termAbstractionMap is shared between transformers
         KILtoSMTLib rightTransformer = new KILtoSMTLib(false,
@@ -205,7 +233,9 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
                 rightHandSide.globalContext().krunOptions,
                 rightHandSide.globalContext(), leftTransformer.termAbstractionMap);
 
-        CharSequence leftExpression = leftTransformer.translate(leftHandSide).expression();
+        CharSequence leftExpression = nameHypotheses
+                                      ? leftTransformer.translateNamedEqualities(leftHandSide)
+                                      : leftTransformer.translate(leftHandSide).expression();
         String rightExpression = rightTransformer.translate(rightHandSide).expression().toString();
         StringBuilder sb = new StringBuilder(1024);
         Sets.SetView<Variable> allVars = Sets.union(leftTransformer.variables(), rightTransformer.variables());
@@ -214,9 +244,14 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
         leftTransformer.appendAxioms(sb);
         leftTransformer.appendConstantDeclarations(sb, Sets.difference(allVars, usedExistentialQuantVars));
 
-        sb.append("(assert (and\n  ");
-        sb.append(leftExpression);
-        sb.append("\n  (not ");
+        if (nameHypotheses) {
+            sb.append(leftExpression);
+            sb.append("(assert (and\n  (not ");
+        } else {
+            sb.append("(assert (and\n  ");
+            sb.append(leftExpression);
+            sb.append("\n  (not ");
+        }
         if (!usedExistentialQuantVars.isEmpty()) {
             sb.append("(exists (");
             leftTransformer.appendQuantifiedVariables(sb, usedExistentialQuantVars);
@@ -245,6 +280,18 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
     private final LinkedHashMap<Term, Variable> termAbstractionMap;
     private final LinkedHashMap<UninterpretedToken, Integer> tokenEncoding;
     private final Stack<Term> binders;
+    /**
+     * The cache of translations, or null if {@code --cache-smtlib} is disabled.
+     */
+    private final SMTLibTranslationCache cache;
+    /**
+     * The variables occurring in the term being translated by {@link #translateCached}, or null.
+     */
+    private Set<Variable> fragmentVariables;
+    /**
+     * False if the term being translated by {@link #translateCached} depends on the state of this translation.
+     */
+    private boolean fragmentCacheable;
 
     private KILtoSMTLib(boolean allowNewVars, GlobalContext global) {
         this(allowNewVars, global.getDefinition(), global.krunOptions, global, new LinkedHashMap<>());
@@ -270,6 +317,7 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
         variables = new LinkedHashSet<>();
         tokenEncoding = new LinkedHashMap<>();
         binders = new Stack<>();
+        cache = global.javaExecutionOptions.cacheSmtlib ? global.smtlibCache.forDefinition(definition) : null;
     }
 
     private SMTLibTerm translate(JavaSymbolicObject object) {
@@ -282,6 +330,38 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
     }
 
     private StringBuilder appendSortAndFunctionDeclarations(StringBuilder sb, Set<Variable> variables) {
+        SMTLibTranslationCache.Preamble preamble = preamble();
+        Set<Sort> sorts = new LinkedHashSet<>(preamble.functionSorts);
+        for (Variable variable : variables) {
+            sorts.add(renameSort(variable.sort()));
+        }
+
+        for (Sort sort : Sets.difference(sorts, Sets.union(SMTLIB_BUILTIN_SORTS, definition.smtPreludeSorts()))) {
+            if (sort.equals(Sort.MAP) && krunOptions.experimental.smt.mapAsIntArray) {
+                sb.append("(define-sort Map () (Array Int Int))");
+            } else {
+                sb.append("(declare-sort ");
+                sb.append(renameSort(sort).name());
+                sb.append(")\n");
+            }
+        }
+
+        sb.append(preamble.functionDeclarations);
+        return sb;
+    }
+
+    private CharSequence appendAxioms(StringBuilder sb) {
+        return sb.append(preamble().axioms);
+    }
+
+    private SMTLibTranslationCache.Preamble preamble() {
+        return cache != null ? cache.preamble(this::buildPreamble) : buildPreamble();
+    }
+
+    /**
+     * Builds the parts of the query that only depend on the definition.
+     */
+    private SMTLibTranslationCache.Preamble buildPreamble() {
         Set<Sort> sorts = new LinkedHashSet<>();
         List<KLabelConstant> functions = new ArrayList<>();
         for (KLabelConstant kLabel : definition.kLabels()) {
@@ -297,20 +377,8 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
                         .forEach(sorts::add);
             }
         }
-        for (Variable variable : variables) {
-            sorts.add(renameSort(variable.sort()));
-        }
-
-        for (Sort sort : Sets.difference(sorts, Sets.union(SMTLIB_BUILTIN_SORTS, definition.smtPreludeSorts()))) {
-            if (sort.equals(Sort.MAP) && krunOptions.experimental.smt.mapAsIntArray) {
-                sb.append("(define-sort Map () (Array Int Int))");
-            } else {
-                sb.append("(declare-sort ");
-                sb.append(renameSort(sort).name());
-                sb.append(")\n");
-            }
-        }
 
+        StringBuilder sb = new StringBuilder();
         for (KLabelConstant kLabel : functions) {
             sb.append("(declare-fun ");
             sb.append(kLabel.getAttr(Att.SMTLIB()));
@@ -325,10 +393,11 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
             sb.append(")\n");
         }
 
-        return sb;
+        return new SMTLibTranslationCache.Preamble(sorts, sb.toString(), buildAxioms());
     }
 
-    private CharSequence appendAxioms(StringBuilder sb) {
+    private String buildAxioms() {
+        StringBuilder sb = new StringBuilder();
         for (Rule rule : definition.functionRules().values()) {
             if (rule.att().contains(Att.SMT_LEMMA())) {
                 try {
@@ -373,7 +442,7 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
                 } catch (UnsupportedOperationException e) { }
             }
         }
-        return sb;
+        return sb.toString();
     }
 
     private CharSequence appendConstantDeclarations(StringBuilder sb, Set<Variable> variables) {
@@ -487,15 +556,65 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
         return new SMTLibTerm(sb);
     }
 
+    /**
+     * Translates the equalities of the given constraint into named assertions, skipping those that cannot be
+     * translated, like {@link #transform(ConjunctiveFormula)} does.
+     */
+    private CharSequence translateNamedEqualities(ConjunctiveFormula constraint) {
+        if (!constraint.disjunctions().isEmpty()) {
+            throw KEMException.criticalError(
+                    "disjunctions are not supported by SMT translation for:\n" + constraint.toStringMultiline());
+        }
+        StringBuilder sb = new StringBuilder();
+        int index = 0;
+        for (Equality equality : constraint.equalities()) {
+            try {
+                CharSequence left = translateTerm(equality.leftHandSide());
+                CharSequence right = translateTerm(equality.rightHandSide());
+                sb.append("(assert (! (= ");
+                sb.append(left);
+                sb.append(" ");
+                sb.append(right);
+                sb.append(") :named ");
+                sb.append(hypothesisName(index));
+                sb.append("))\n");
+            } catch (UnsupportedOperationException e) {
+                /* it is sound to skip the equalities that cannot be translated */
+            }
+            index++;
+        }
+        return sb;
+    }
+
     public CharSequence translateTerm(Term term) {
         try {
-            return translate(term).expression();
+            return cache != null ? translateCached(term) : translate(term).expression();
         } catch (SMTTranslationFailure | UnsupportedOperationException e) {
             return abstractThroughAnonVariable(term, e);
         }
     }
 
+    private CharSequence translateCached(Term term) {
+        SMTLibTranslationCache.Fragment fragment = cache.get(term);
+        if (fragment != null) {
+            variables.addAll(fragment.variables);
+            return fragment.expression;
+        }
+        fragmentVariables = new LinkedHashSet<>();
+        fragmentCacheable = true;
+        try {
+            String expression = translate(term).expression().toString();
+            if (fragmentCacheable) {
+                cache.put(term, new SMTLibTranslationCache.Fragment(expression, fragmentVariables));
+            }
+            return expression;
+        } finally {
+            fragmentVariables = null;
+        }
+    }
+
     private String abstractThroughAnonVariable(Term term, RuntimeException e) {
+        fragmentCacheable = false;
         Variable variable = termAbstractionMap.get(term);
         if (variable == null) {
             if (allowNewVars) {
@@ -689,6 +808,7 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
                 throw new SMTTranslationFailure("unbounded K variable: " + uninterpretedToken);
             }
         }
+        fragmentCacheable = false;
         if (tokenEncoding.get(uninterpretedToken) == null) {
             tokenEncoding.put(uninterpretedToken, tokenEncoding.size());
         }
@@ -703,6 +823,9 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
     @Override
     public SMTLibTerm transform(Variable variable) {
         variables.add(variable);
+        if (fragmentVariables != null) {
+            fragmentVariables.add(variable);
+        }
         return new SMTLibTerm("|" + variable.longName() + "|");
     }
 
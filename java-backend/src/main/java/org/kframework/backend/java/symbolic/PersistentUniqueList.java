@@ -62,6 +62,11 @@ public class PersistentUniqueList<E> extends AbstractList<E> implements PVector<
         return contents.size();
     }
 
+    @Override
+    public boolean contains(Object o) {
+        return mark.contains(o);
+    }
+
     @Override
     public PersistentUniqueList<E> plus(E e) {
         return !mark.contains(e) ?
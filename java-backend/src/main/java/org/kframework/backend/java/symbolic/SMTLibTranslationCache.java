@@ -0,0 +1,104 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.util.CacheStats;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the parts of {@link KILtoSMTLib} queries that do not change between queries, with {@code --cache-smtlib}.
+ * <p>
+ * The preamble (sort and function declarations and axioms of the definition) is computed once per definition.
+ * Fragments are translations of the sides of equalities, cached only if they do not depend on the state of the
+ * query, i.e. if they contain no abstracted terms and no uninterpreted tokens. All entries are discarded when the
+ * definition changes.
+ */
+public class SMTLibTranslationCache {
+
+    private static final long MAX_FRAGMENTS = 100000;
+
+    static final class Fragment {
+        final String expression;
+        /**
+         * The variables declared by the translation, in order of occurrence.
+         */
+        final Set<Variable> variables;
+
+        Fragment(String expression, Set<Variable> variables) {
+            this.expression = expression;
+            this.variables = variables;
+        }
+    }
+
+    static final class Preamble {
+        /**
+         * The sorts used by the declared functions, before the sorts of the query variables.
+         */
+        final Set<Sort> functionSorts;
+        final String functionDeclarations;
+        final String axioms;
+
+        Preamble(Set<Sort> functionSorts, String functionDeclarations, String axioms) {
+            this.functionSorts = functionSorts;
+            this.functionDeclarations = functionDeclarations;
+            this.axioms = axioms;
+        }
+    }
+
+    public final CacheStats stats = new CacheStats("SMTLib translation cache");
+
+    private final Cache<Term, Fragment> fragments = CacheBuilder.newBuilder()
+            .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+            .maximumSize(MAX_FRAGMENTS)
+            .removalListener((RemovalListener<Term, Fragment>) notification -> {
+                if (notification.wasEvicted()) {
+                    stats.evict();
+                }
+            })
+            .build();
+
+    private Definition keyedDefinition;
+    private Preamble preamble;
+
+    /**
+     * Discards all entries if they were computed for another definition.
+     */
+    synchronized SMTLibTranslationCache forDefinition(Definition definition) {
+        if (definition != keyedDefinition) {
+            fragments.invalidateAll();
+            preamble = null;
+            keyedDefinition = definition;
+        }
+        return this;
+    }
+
+    synchronized Preamble preamble(Supplier<Preamble> builder) {
+        if (preamble == null) {
+            preamble = builder.get();
+        }
+        return preamble;
+    }
+
+    Fragment get(Term term) {
+        Fragment fragment = fragments.getIfPresent(term);
+        if (fragment != null) {
+            stats.hit();
+        } else {
+            stats.miss();
+        }
+        return fragment;
+    }
+
+    void put(Term term, Fragment fragment) {
+        fragments.put(term, fragment);
+        stats.store();
+    }
+}
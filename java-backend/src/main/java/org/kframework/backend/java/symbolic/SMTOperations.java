@@ -1,9 +1,12 @@
 // Copyright (c) 2015-2019 K Team. All Rights Reserved.
 package org.kframework.backend.java.symbolic;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Provider;
 import org.kframework.backend.java.kil.Definition;
 import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.util.CacheStats;
 import org.kframework.backend.java.util.FormulaContext;
 import org.kframework.backend.java.util.Z3Wrapper;
 import org.kframework.utils.IndentingFormatter;
@@ -13,6 +16,8 @@ import org.kframework.utils.errorsystem.KExceptionManager;
 import org.kframework.utils.options.SMTOptions;
 import org.kframework.utils.options.SMTSolver;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 public class SMTOperations {
@@ -22,6 +27,12 @@ public class SMTOperations {
     private final JavaExecutionOptions javaExecutionOptions;
     private final KExceptionManager kem;
 
+    /**
+     * Results of {@link #checkUnsat} on slices of constraints, with {@code --smt-slicing}.
+     */
+    private final Cache<ConjunctiveFormula, Boolean> sliceCache;
+    public final CacheStats sliceCacheStats = new CacheStats("SMT slice cache");
+
     public SMTOperations(
             Provider<Definition> definitionProvider,
             SMTOptions smtOptions,
@@ -32,6 +43,10 @@ public class SMTOperations {
         this.z3         = z3;
         this.kem        = kem;
         this.javaExecutionOptions = javaExecutionOptions;
+        this.sliceCache = CacheBuilder.newBuilder()
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .maximumSize(javaExecutionOptions.smtSliceCacheSize)
+                .build();
     }
 
     public boolean checkUnsat(ConjunctiveFormula constraint, FormulaContext formulaContext) {
@@ -43,6 +58,35 @@ public class SMTOperations {
             return false;
         }
 
+        if (javaExecutionOptions.smtSlicing) {
+            List<ConjunctiveFormula> slices = ConstraintSlicer.slices(constraint);
+            for (ConjunctiveFormula slice : slices) {
+                if (!slice.isSubstitution() && checkSliceUnsat(slice, formulaContext)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return checkUnsatImpl(constraint, formulaContext);
+    }
+
+    /**
+     * Slices are checked independently, so the slices not affected by the last conjunct added to a path condition
+     * are already in the cache.
+     */
+    private boolean checkSliceUnsat(ConjunctiveFormula slice, FormulaContext formulaContext) {
+        Boolean result = sliceCache.getIfPresent(slice);
+        if (result != null) {
+            sliceCacheStats.hit();
+            return result;
+        }
+        sliceCacheStats.miss();
+        result = checkUnsatImpl(slice, formulaContext);
+        sliceCache.put(slice, result);
+        return result;
+    }
+
+    private boolean checkUnsatImpl(ConjunctiveFormula constraint, FormulaContext formulaContext) {
         IndentingFormatter log = constraint.globalContext().log();
         boolean result = false;
         try {
@@ -85,7 +129,34 @@ public class SMTOperations {
             ConjunctiveFormula left,
             ConjunctiveFormula right,
             Set<Variable> existentialQuantVars, FormulaContext formulaContext) {
+        return impliesSMT(left, right, existentialQuantVars, formulaContext, false) != null;
+    }
+
+    /**
+     * Same as {@link #impliesSMT(ConjunctiveFormula, ConjunctiveFormula, Set, FormulaContext)}, but also finds the
+     * equalities of {@code left} that are enough to prove the implication, from the unsat core reported by Z3.
+     *
+     * @return the equalities used by the proof, or null if the implication was not proved.
+     */
+    public List<Equality> impliesSMTCore(
+            ConjunctiveFormula left,
+            ConjunctiveFormula right,
+            Set<Variable> existentialQuantVars, FormulaContext formulaContext) {
+        return impliesSMT(left, right, existentialQuantVars, formulaContext, true);
+    }
+
+    /**
+     * @return null if the implication was not proved. Otherwise the equalities of {@code left} in the unsat core
+     * if {@code unsatCore} is true, or all of them.
+     */
+    private List<Equality> impliesSMT(
+            ConjunctiveFormula left,
+            ConjunctiveFormula right,
+            Set<Variable> existentialQuantVars, FormulaContext formulaContext, boolean unsatCore) {
         if (smtOptions.smt == SMTSolver.Z3) {
+            if (javaExecutionOptions.smtSlicing) {
+                left = ConstraintSlicer.relevantSlice(left, right);
+            }
             IndentingFormatter log = left.globalContext().log();
             try {
                 left.globalContext().profiler.queryBuildTimer.start();
@@ -94,14 +165,32 @@ public class SMTOperations {
                     log.format("\nAnonymous vars in query:\n");
                 }
                 try {
-                    query = KILtoSMTLib.translateImplication(left, right, existentialQuantVars).toString();
+                    query = unsatCore
+                            ? KILtoSMTLib.translateImplicationWithNamedHypotheses(left, right, existentialQuantVars)
+                                    .toString()
+                            : KILtoSMTLib.translateImplication(left, right, existentialQuantVars).toString();
                 } finally {
                     left.globalContext().profiler.queryBuildTimer.stop();
                 }
                 if (javaExecutionOptions.debugZ3Queries) {
                     log.format("\nZ3 query:\n%s\n", query);
                 }
-                return z3.isUnsat(query, smtOptions.z3ImplTimeout, formulaContext.z3Profiler);
+                if (!unsatCore) {
+                    return z3.isUnsat(query, smtOptions.z3ImplTimeout, formulaContext.z3Profiler)
+                           ? left.equalities()
+                           : null;
+                }
+                List<String> core = z3.unsatCore(query, smtOptions.z3ImplTimeout, formulaContext.z3Profiler);
+                if (core == null) {
+                    return null;
+                }
+                List<Equality> hypotheses = new ArrayList<>();
+                for (int i = 0; i < left.equalities().size(); i++) {
+                    if (core.contains(KILtoSMTLib.hypothesisName(i))) {
+                        hypotheses.add(left.equalities().get(i));
+                    }
+                }
+                return hypotheses;
             } catch (UnsupportedOperationException | SMTTranslationFailure e) {
                 if (!smtOptions.ignoreMissingSMTLibWarning) {
                     //These warnings have different degree of relevance depending whether they are in init or execution phase
@@ -124,6 +213,6 @@ public class SMTOperations {
                 throw e;
             }
         }
-        return false;
+        return null;
     }
 }
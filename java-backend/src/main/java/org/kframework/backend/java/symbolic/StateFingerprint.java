@@ -0,0 +1,190 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.kframework.backend.java.builtins.UninterpretedToken;
+import org.kframework.backend.java.kil.*;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Computes 128-bit structural fingerprints of states, so that visited states may be remembered without keeping the
+ * states themselves.
+ * <p>
+ * Equal states have equal fingerprints: maps, sets and substitutions are hashed independently of iteration order.
+ * Different states have different fingerprints with overwhelming probability.
+ */
+public class StateFingerprint extends BottomUpVisitor {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final Hasher hasher = HASH_FUNCTION.newHasher();
+
+    private StateFingerprint() { }
+
+    /**
+     * @return the fingerprint as two longs, most significant first.
+     */
+    public static long[] of(ConstrainedTerm state) {
+        StateFingerprint fingerprint = new StateFingerprint();
+        state.term().accept(fingerprint);
+        state.constraint().accept(fingerprint);
+        ByteBuffer bytes = ByteBuffer.wrap(fingerprint.hasher.hash().asBytes());
+        return new long[]{bytes.getLong(), bytes.getLong()};
+    }
+
+    private static HashCode hash(Term term) {
+        StateFingerprint fingerprint = new StateFingerprint();
+        term.accept(fingerprint);
+        return fingerprint.hasher.hash();
+    }
+
+    private static HashCode hash(Term key, Term value) {
+        StateFingerprint fingerprint = new StateFingerprint();
+        key.accept(fingerprint);
+        value.accept(fingerprint);
+        return fingerprint.hasher.hash();
+    }
+
+    /**
+     * Adds an order-independent combination of the given hashes.
+     */
+    private void putUnordered(Iterable<HashCode> hashes) {
+        long high = 0;
+        long low = 0;
+        int size = 0;
+        for (HashCode hash : hashes) {
+            ByteBuffer bytes = ByteBuffer.wrap(hash.asBytes());
+            high += bytes.getLong();
+            low += bytes.getLong();
+            size++;
+        }
+        hasher.putInt(size).putLong(high).putLong(low);
+    }
+
+    private void putTag(String tag) {
+        hasher.putUnencodedChars(tag).putChar('\0');
+    }
+
+    @Override
+    public void visit(BuiltinList node) {
+        super.visit(node);
+        putTag("BuiltinList");
+        putTag(node.operatorKLabel.name());
+        putTag(node.sort.toString());
+        hasher.putInt(node.children.size());
+    }
+
+    @Override
+    public void visit(BuiltinMap builtinMap) {
+        putTag("BuiltinMap");
+        putUnordered(() -> builtinMap.getEntries().entrySet().stream()
+                .map(entry -> hash(entry.getKey(), entry.getValue())).iterator());
+        putUnordered(() -> builtinMap.baseTerms().stream().map(StateFingerprint::hash).iterator());
+    }
+
+    @Override
+    public void visit(BuiltinSet builtinSet) {
+        putTag("BuiltinSet");
+        putUnordered(() -> builtinSet.elements().stream().map(StateFingerprint::hash).iterator());
+        putUnordered(() -> builtinSet.baseTerms().stream().map(StateFingerprint::hash).iterator());
+    }
+
+    @Override
+    public void visit(KItem kItem) {
+        kItem.kLabel().accept(this);
+        kItem.kList().accept(this);
+        putTag("KItem");
+    }
+
+    @Override
+    public void visit(KItemProjection kItemProjection) {
+        kItemProjection.term().accept(this);
+        putTag("KItemProjection");
+        putTag(kItemProjection.kind().toString());
+    }
+
+    @Override
+    public void visit(KLabelInjection kLabelInjection) {
+        kLabelInjection.term().accept(this);
+        putTag("KLabelInjection");
+    }
+
+    @Override
+    public void visit(InjectedKLabel injectedKLabel) {
+        injectedKLabel.injectedKLabel().accept(this);
+        putTag("InjectedKLabel");
+    }
+
+    @Override
+    public void visit(KCollection kCollection) {
+        for (Term term : kCollection) {
+            term.accept(this);
+        }
+        if (kCollection.hasFrame()) {
+            kCollection.frame().accept(this);
+        }
+        putTag(kCollection.getClass().getSimpleName());
+        hasher.putInt(kCollection.size()).putBoolean(kCollection.hasFrame());
+    }
+
+    @Override
+    public void visit(KLabelConstant kLabelConstant) {
+        putTag("KLabelConstant");
+        putTag(kLabelConstant.name());
+    }
+
+    @Override
+    public void visit(Token token) {
+        putTag("Token");
+        putTag(token.toString());
+    }
+
+    @Override
+    public void visit(UninterpretedToken uninterpretedToken) {
+        visit((Token) uninterpretedToken);
+    }
+
+    @Override
+    public void visit(Variable variable) {
+        putTag("Variable");
+        putTag(variable.name());
+        putTag(variable.sort().toString());
+    }
+
+    @Override
+    public void visit(ConjunctiveFormula node) {
+        putTag("ConjunctiveFormula");
+        putTag(node.truthValue().toString());
+        putUnordered(() -> node.substitution().entrySet().stream()
+                .map(entry -> hash(entry.getKey(), entry.getValue())).iterator());
+        hasher.putInt(node.equalities().size());
+        for (Equality equality : node.equalities()) {
+            equality.leftHandSide().accept(this);
+            equality.rightHandSide().accept(this);
+        }
+        hasher.putInt(node.disjunctions().size());
+        for (DisjunctiveFormula disjunctiveFormula : node.disjunctions()) {
+            disjunctiveFormula.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(DisjunctiveFormula node) {
+        super.visit(node);
+        putTag("DisjunctiveFormula");
+        hasher.putInt(node.conjunctions().size());
+    }
+
+    /**
+     * Other terms are rare in states; their class and string representation are enough.
+     */
+    @Override
+    public void visit(Term term) {
+        putTag(term.getClass().getSimpleName());
+        putTag(term.toString());
+    }
+}
@@ -11,6 +11,7 @@ import org.kframework.Strategy;
 import org.kframework.attributes.Att;
 import org.kframework.backend.java.builtins.BoolToken;
 import org.kframework.backend.java.builtins.FreshOperations;
+import org.kframework.backend.java.builtins.IntToken;
 import org.kframework.backend.java.compile.KOREtoBackendKIL;
 import org.kframework.backend.java.kil.BuiltinList;
 import org.kframework.backend.java.kil.ConstrainedTerm;
@@ -26,6 +27,10 @@ import org.kframework.backend.java.kil.Sort;
 import org.kframework.backend.java.kil.Term;
 import org.kframework.backend.java.kil.TermContext;
 import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.strategies.BestFirstFrontier;
+import org.kframework.backend.java.strategies.DepthFirstFrontier;
+import org.kframework.backend.java.strategies.SearchFrontier;
+import org.kframework.backend.java.strategies.SearchStrategy;
 import org.kframework.backend.java.util.FormulaContext;
 import org.kframework.backend.java.util.RuleSourceUtil;
 import org.kframework.backend.java.util.StateLog;
@@ -45,8 +50,10 @@ import org.kframework.utils.errorsystem.KExceptionManager;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -54,6 +61,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -67,9 +77,12 @@ public class SymbolicRewriter {
     private final KOREtoBackendKIL constructor;
     private final GlobalContext global;
     private boolean transition;
-    private final Set<ConstrainedTerm> superheated = Sets.newHashSet();
-    private final Set<ConstrainedTerm> newSuperheated = Sets.newHashSet();
-    private final FastRuleMatcher theFastMatcher;
+    private final Set<ConstrainedTerm> superheated = Sets.newConcurrentHashSet();
+    private final Set<ConstrainedTerm> newSuperheated = Sets.newConcurrentHashSet();
+    /**
+     * One matcher per thread, since matchers carry state between calls.
+     */
+    private final ThreadLocal<FastRuleMatcher> theFastMatcher;
     private final Definition definition;
 
     public SymbolicRewriter(GlobalContext global, List<String> transitions,
@@ -77,7 +90,7 @@ public class SymbolicRewriter {
         this.constructor = constructor;
         this.definition = global.getDefinition();
         this.transitions = transitions;
-        this.theFastMatcher = new FastRuleMatcher(global);
+        this.theFastMatcher = ThreadLocal.withInitial(() -> new FastRuleMatcher(global));
         this.transition = true;
         this.global = global;
         parseLogCells();
@@ -179,7 +192,7 @@ public class SymbolicRewriter {
             return results;
         }
 
-        List<FastRuleMatcher.RuleMatchResult> matches = theFastMatcher.matchRulePattern(
+        List<FastRuleMatcher.RuleMatchResult> matches = theFastMatcher.get().matchRulePattern(
                 subject,
                 narrowing,
                 computeOne,
@@ -348,8 +361,9 @@ public class SymbolicRewriter {
                 //noinspection RedundantCast
                 newContents.set(path.head().getLeft(), buildRHS(newContents.get(path.head().getLeft()), substitution,
                         (scala.collection.immutable.List<Pair<Integer, Integer>>) path.tail(), rhs, context));
-                return KItem.of(kItemSubject.kLabel(), KList.concatenate(newContents), context.global())
-                        .resolveFunctionAndAnywhere(context);
+                return context.global().termInterner.intern(
+                        KItem.of(kItemSubject.kLabel(), KList.concatenate(newContents), context.global())
+                                .resolveFunctionAndAnywhere(context));
             } else if (subject instanceof BuiltinList) {
                 BuiltinList builtinListSubject = (BuiltinList) subject;
                 List<Term> newContents = new ArrayList<>(builtinListSubject.children);
@@ -400,8 +414,9 @@ public class SymbolicRewriter {
         }
 
         if (subject instanceof KItem) {
-            return KItem.of(((KItem) subject).kLabel(), KList.concatenate(newContents), context.global())
-                    .resolveFunctionAndAnywhere(context);
+            return context.global().termInterner.intern(
+                    KItem.of(((KItem) subject).kLabel(), KList.concatenate(newContents), context.global())
+                            .resolveFunctionAndAnywhere(context));
         } else
             //noinspection ConstantConditions
             if (subject instanceof BuiltinList) {
@@ -511,7 +526,7 @@ public class SymbolicRewriter {
         stopwatch.start();
 
         List<K> searchResults = new ArrayList<>();
-        Set<ConstrainedTerm> visited = Sets.newHashSet();
+        VisitedStates visited = new VisitedStates(context.global().javaExecutionOptions);
 
         ConstrainedTerm initCnstrTerm = new ConstrainedTerm(initialTerm, context);
 
@@ -544,61 +559,224 @@ public class SymbolicRewriter {
                 return disjunctResults(searchResults);
             }
         }
+        if (global.javaExecutionOptions.searchStrategy != SearchStrategy.BFS) {
+            return searchWithFrontier(initCnstrTerm, pattern, bound, depth, searchType, context, searchResults);
+        }
 
+        ForkJoinPool frontierPool = global.javaExecutionOptions.parallelFrontier > 1
+                                    ? new ForkJoinPool(global.javaExecutionOptions.parallelFrontier)
+                                    : null;
         int step;
+        try {
+        label:
+            for (step = 0; !queue.isEmpty(); ++step) {
+                superheated.clear();
+                superheated.addAll(newSuperheated);
+                newSuperheated.clear();
+                List<FrontierStep> frontierSteps = null;
+                if (frontierPool != null && queue.size() > 1) {
+                    queue = forkTermContexts(queue);
+                    frontierSteps = computeSearchSteps(frontierPool, new ArrayList<>(queue.keySet()), step, initCnstrTerm);
+                }
+                int index = 0;
+                for (Map.Entry<ConstrainedTerm, Integer> entry : queue.entrySet()) {
+                    ConstrainedTerm term = entry.getKey();
+                    Integer currentDepth = entry.getValue();
+                    FrontierStep frontierStep = frontierSteps != null ? frontierSteps.get(index++) : null;
+                    if (frontierStep != null && frontierStep.failure != null) {
+                        throw frontierStep.rethrowFailure();
+                    }
+
+                    List<ConstrainedTerm> results = frontierStep != null
+                                                    ? frontierStep.results
+                                                    : computeRewriteStep(term, step, false, initCnstrTerm);
+
+                    if (results.isEmpty() && searchType == SearchType.FINAL) {
+                        if (addSearchResult(searchResults, term, pattern, bound, context)) {
+                            break label;
+                        }
+                    }
+
+                    for (ConstrainedTerm result : results) {
+                        if (!transition) {
+                            nextQueue.put(result, currentDepth);
+                            break;
+                        } else {
+                            // Continue searching if we haven't reached our target
+                            // depth and we haven't already visited this state.
+                            if (currentDepth + 1 != depth && visited.add(result)) {
+                                nextQueue.put(result, currentDepth + 1);
+                            }
+                            // If we aren't searching for only final results, then
+                            // also add this as a result if it matches the pattern.
+                            if (searchType != SearchType.FINAL || currentDepth + 1 == depth) {
+                                if (addSearchResult(searchResults, result, pattern, bound, context)) {
+                                    break label;
+                                }
+                            }
+                        }
+                    }
+                }
+
+                /* swap the queues */
+                Map<ConstrainedTerm, Integer> temp;
+                temp = queue;
+                queue = nextQueue;
+                nextQueue = temp;
+                nextQueue.clear();
+            }
+        } finally {
+            if (frontierPool != null) {
+                frontierPool.shutdown();
+            }
+        }
+
+        stopwatch.stop();
+        if (context.global().krunOptions.experimental.statistics) {
+            System.err.println("[" + visited.size() + "states, " + step + "steps, " + stopwatch + "]");
+            if (visited.collisions() > 0) {
+                System.err.println("[" + visited.collisions() + " fingerprint collisions]");
+            }
+        }
+        return disjunctResults(searchResults);
+    }
+
+    /**
+     * Search exploring one state at a time, in the order given by a {@link SearchFrontier}, so that only the frontier,
+     * the visited states and the results are kept in memory.
+     * <p>
+     * With a depth bound, states are remembered with the depth at which they were visited, and explored again if they
+     * are reached at a smaller depth, so that a state first reached at the depth limit is still explored if it is also
+     * reachable by a shorter path. With iterative deepening, states are reported as search results only once over all
+     * searches.
+     */
+    private K searchWithFrontier(ConstrainedTerm initCnstrTerm, Rule pattern, int bound, int depth,
+                                 SearchType searchType, TermContext context, List<K> searchResults) {
+        JavaExecutionOptions options = global.javaExecutionOptions;
+        SearchStrategy strategy = options.searchStrategy;
+        boolean iterative = strategy == SearchStrategy.ITERATIVE_DEEPENING;
+        boolean bounded = iterative || depth > 0;
+        Set<Object> reported = iterative ? new HashSet<>() : null;
+        if (iterative && searchType == SearchType.STAR) {
+            reported.add(VisitedStates.key(initCnstrTerm, options));
+        }
+
+        int step = 0;
+        int states = 0;
+        int dropped = 0;
+        int limit = iterative && depth != 1 ? 1 : depth;
     label:
-        for (step = 0; !queue.isEmpty(); ++step) {
-            superheated.clear();
-            superheated.addAll(newSuperheated);
-            newSuperheated.clear();
-            for (Map.Entry<ConstrainedTerm, Integer> entry : queue.entrySet()) {
-                ConstrainedTerm term = entry.getKey();
-                Integer currentDepth = entry.getValue();
+        while (true) {
+            SearchFrontier frontier = newSearchFrontier(strategy);
+            VisitedStates visited = bounded ? null : new VisitedStates(options);
+            Map<Object, Integer> visitedDepths = bounded ? new HashMap<>() : null;
+            boolean cut = false;
+
+            if (bounded) {
+                visitedDepths.put(VisitedStates.key(initCnstrTerm, options), 0);
+            } else {
+                visited.add(initCnstrTerm);
+            }
+            frontier.addAll(Collections.singletonList(initCnstrTerm), 0);
+            states++;
+
+            while (!frontier.isEmpty()) {
+                Pair<ConstrainedTerm, Integer> next = frontier.remove();
+                ConstrainedTerm term = next.getLeft();
+                int currentDepth = next.getRight();
 
-                List<ConstrainedTerm> results = computeRewriteStep(term, step, false, initCnstrTerm);
+                superheated.clear();
+                superheated.addAll(newSuperheated);
+                newSuperheated.clear();
+                List<ConstrainedTerm> results = computeRewriteStep(term, step++, false, initCnstrTerm);
 
-                if (results.isEmpty() && searchType == SearchType.FINAL) {
+                if (results.isEmpty() && searchType == SearchType.FINAL
+                        && (!iterative || reported.add(VisitedStates.key(term, options)))) {
                     if (addSearchResult(searchResults, term, pattern, bound, context)) {
+                        dropped += frontier.dropped();
                         break label;
                     }
                 }
 
+                List<ConstrainedTerm> successors = new ArrayList<>();
                 for (ConstrainedTerm result : results) {
-                    if (!transition) {
-                        nextQueue.put(result, currentDepth);
-                        break;
+                    Object key = bounded ? VisitedStates.key(result, options) : null;
+                    boolean isNew;
+                    if (bounded) {
+                        Integer visitedDepth = visitedDepths.get(key);
+                        isNew = visitedDepth == null || visitedDepth > currentDepth + 1;
+                        if (isNew) {
+                            visitedDepths.put(key, currentDepth + 1);
+                        }
                     } else {
-                        // Continue searching if we haven't reached our target
-                        // depth and we haven't already visited this state.
-                        if (currentDepth + 1 != depth && visited.add(result)) {
-                            nextQueue.put(result, currentDepth + 1);
+                        isNew = visited.add(result);
+                    }
+                    if (isNew) {
+                        states++;
+                        // Only explore states strictly within the depth limit.
+                        if (currentDepth + 1 != limit) {
+                            successors.add(result);
+                        } else if (limit != depth) {
+                            cut = true;
                         }
-                        // If we aren't searching for only final results, then
-                        // also add this as a result if it matches the pattern.
-                        if (searchType != SearchType.FINAL || currentDepth + 1 == depth) {
-                            if (addSearchResult(searchResults, result, pattern, bound, context)) {
-                                break label;
-                            }
+                    }
+                    if ((searchType != SearchType.FINAL || currentDepth + 1 == depth)
+                            && (!iterative || reported.add(key))) {
+                        if (addSearchResult(searchResults, result, pattern, bound, context)) {
+                            dropped += frontier.dropped();
+                            break label;
                         }
                     }
                 }
+                frontier.addAll(successors, currentDepth + 1);
             }
+            dropped += frontier.dropped();
 
-            /* swap the queues */
-            Map<ConstrainedTerm, Integer> temp;
-            temp = queue;
-            queue = nextQueue;
-            nextQueue = temp;
-            nextQueue.clear();
+            if (iterative && cut) {
+                limit = depth < 0 ? limit * 2 : Math.min(limit * 2, depth);
+            } else {
+                break;
+            }
         }
 
         stopwatch.stop();
         if (context.global().krunOptions.experimental.statistics) {
-            System.err.println("[" + visited.size() + "states, " + step + "steps, " + stopwatch + "]");
+            System.err.println("[" + states + "states, " + step + "steps, " + stopwatch + "]");
+            if (dropped > 0) {
+                System.err.println("[" + dropped + " states dropped from the frontier]");
+            }
         }
         return disjunctResults(searchResults);
     }
 
+    private SearchFrontier newSearchFrontier(SearchStrategy strategy) {
+        switch (strategy) {
+        case DFS:
+        case ITERATIVE_DEEPENING:
+            return new DepthFirstFrontier();
+        case BEST_FIRST:
+            String cell = global.javaExecutionOptions.searchHeuristicCell;
+            if (cell == null) {
+                throw KEMException.criticalError("--search-strategy best-first requires --search-heuristic-cell");
+            }
+            return new BestFirstFrontier(term -> searchHeuristic(term, cell),
+                    global.javaExecutionOptions.searchMaxFrontier);
+        default:
+            throw new AssertionError("unexpected search strategy: " + strategy);
+        }
+    }
+
+    /**
+     * @return the value of the first heuristic cell of the state, or null if there is none or it is not an integer.
+     */
+    private static BigInteger searchHeuristic(ConstrainedTerm term, String cell) {
+        List<Term> contents = term.term().getCellContentsByName(cell);
+        if (!contents.isEmpty() && contents.get(0) instanceof IntToken) {
+            return ((IntToken) contents.get(0)).bigIntegerValue();
+        }
+        return null;
+    }
+
     private K kApplyConversion(K k) {
         if (k instanceof KItem) {
             KItem kItem = (KItem) k;
@@ -663,152 +841,178 @@ public class SymbolicRewriter {
         }
         int branchingRemaining = global.javaExecutionOptions.branchingAllowed;
         boolean nextStepLogEnabled = false;
-        boolean originalLog = global.javaExecutionOptions.log;
         prevStats = new TimeMemoryEntry(false);
-        while (!queue.isEmpty()) {
-            step++;
-            int v = 0;
-            global.javaExecutionOptions.log |= nextStepLogEnabled;
-            nextStepLogEnabled = false;
-            if (global.javaExecutionOptions.logProgress && step % 100 == 0) {
-                System.err.print(".");
-            }
+        ForkJoinPool frontierPool = global.javaExecutionOptions.parallelFrontier > 1
+                                    ? new ForkJoinPool(global.javaExecutionOptions.parallelFrontier)
+                                    : null;
+        try {
+            while (!queue.isEmpty()) {
+                step++;
+                int v = 0;
+                logCurrentStep = nextStepLogEnabled;
+                nextStepLogEnabled = false;
+                if (global.javaExecutionOptions.logProgress && step % 100 == 0) {
+                    System.err.print(".");
+                }
 
-            for (ConstrainedTerm term : queue) {
-                boolean alreadyLogged = false;
-                try {
-                    v++;
-                    term.termContext().setTopConstraint(null); //To remove leftover constraint from previous step
-                    boolean boundaryCellsMatchTarget =
-                            boundaryCellsMatchTarget(term, boundaryPattern, targetBoundarySub, step);
-                    //var required to avoid logging the same step multiple times.
-                    alreadyLogged = logStep(step, v, term,
-                            step == 1 || boundaryCellsMatchTarget, false, initialTerm);
-                    if (boundaryPattern == null || boundaryCellsMatchTarget) {
-                        //Only test the full implication if there is no boundary pattern or if it is matched.
-                        if (global.javaExecutionOptions.logRulesPublic) {
-                            System.err.format("\nRegular rule final implication phase, step %d\n" +
-                                    "==========================================\n", step);
+                List<FrontierStep> frontierSteps = null;
+                if (frontierPool != null && queue.size() > 1) {
+                    queue = forkTermContexts(queue);
+                    frontierSteps = computeFrontierSteps(frontierPool, queue, rule, targetTerm, boundaryPattern,
+                            targetBoundarySub, step, initialTerm);
+                }
+
+                for (ConstrainedTerm term : queue) {
+                    boolean alreadyLogged = false;
+                    try {
+                        FrontierStep frontierStep = frontierSteps != null ? frontierSteps.get(v) : null;
+                        v++;
+                        if (frontierStep != null && frontierStep.failure != null) {
+                            throw frontierStep.rethrowFailure();
                         }
-                        if (term.implies(targetTerm, rule, !(boundaryPattern == null))) {
-                            //If current term matches the target term, current execution path is proved.
-                            global.stateLog.log(StateLog.LogEvent.REACHPROVED, term.term(), term.constraint());
-                            if (global.javaExecutionOptions.logBasic) {
+                        term.termContext().setTopConstraint(null); //To remove leftover constraint from previous step
+                        boolean boundaryCellsMatchTarget = frontierStep != null
+                                ? frontierStep.boundaryCellsMatchTarget
+                                : boundaryCellsMatchTarget(term, boundaryPattern, targetBoundarySub, step);
+                        //var required to avoid logging the same step multiple times.
+                        alreadyLogged = logStep(step, v, term,
+                                step == 1 || boundaryCellsMatchTarget, false, initialTerm);
+                        if (boundaryPattern == null || boundaryCellsMatchTarget) {
+                            //Only test the full implication if there is no boundary pattern or if it is matched.
+                            if (global.javaExecutionOptions.logRulesPublic) {
+                                System.err.format("\nRegular rule final implication phase, step %d\n" +
+                                        "==========================================\n", step);
+                            }
+                            if (frontierStep != null
+                                ? frontierStep.implies
+                                : term.implies(targetTerm, rule, !(boundaryPattern == null))) {
+                                //If current term matches the target term, current execution path is proved.
+                                global.stateLog.log(StateLog.LogEvent.REACHPROVED, term.term(), term.constraint());
+                                if (global.javaExecutionOptions.logBasic) {
+                                    logStep(step, v, term, true, alreadyLogged, initialTerm);
+                                    System.err.println("\n============\nStep " + step + ": eliminated!\n============\n");
+                                }
+                                successPaths++;
+                                successResults.add(term);
+                                continue;
+                            } else if (boundaryPattern != null && step > 1) {
+                                //If boundary cells in current term match boundary cells in target term but entire terms
+                                // don't match, halt execution.
+                                logStep(step, v, term, global.javaExecutionOptions.logBasic, alreadyLogged, initialTerm);
+                                System.err.println("Halt! Terminating branch.");
+                                proofResults.add(term);
+                                continue;
+                            }
+                            //else: case (no boundary pattern || (step == 1 && boundaryCellsMatchTarget))
+                            //      && final implication == false
+                            //  Do nothing. Boundary checking is disabled if there is no boundary pattern, or at step 1.
+                            //  Disabling on step 1 is useful for specs that match 1 full loop iteration.
+                        }
+
+                        //Attempt to apply a spec rule, except on first step.
+                        if (step > 1) {
+                            ConstrainedTerm result = frontierStep != null
+                                                     ? frontierStep.specResult
+                                                     : applySpecRules(term, step);
+                            if (result != null) {
+                                nextStepLogEnabled = true;
                                 logStep(step, v, term, true, alreadyLogged, initialTerm);
-                                System.err.println("\n============\nStep " + step + ": eliminated!\n============\n");
+                                // re-running constraint generation again for debug purposes
+                                if (global.javaExecutionOptions.logBasic) {
+                                    System.err.println("\nApplying specification rule\n=========================\n");
+                                }
+                                if (visited.add(result)) {
+                                    nextQueue.add(result);
+                                } else {
+                                    if (term.equals(result)) {
+                                        throw KEMException.criticalError(
+                                                "Step " + step + ": infinite loop after applying a spec rule.");
+                                    }
+                                }
+                                continue;
                             }
-                            successPaths++;
-                            successResults.add(term);
-                            continue;
-                        } else if (boundaryPattern != null && step > 1) {
-                            //If boundary cells in current term match boundary cells in target term but entire terms
-                            // don't match, halt execution.
-                            logStep(step, v, term, global.javaExecutionOptions.logBasic, alreadyLogged, initialTerm);
-                            System.err.println("Halt! Terminating branch.");
-                            proofResults.add(term);
-                            continue;
                         }
-                        //else: case (no boundary pattern || (step == 1 && boundaryCellsMatchTarget))
-                        //      && final implication == false
-                        //  Do nothing. Boundary checking is disabled if there is no boundary pattern, or at step 1.
-                        //  Disabling on step 1 is useful for specs that match 1 full loop iteration.
-                    }
 
-                    //Attempt to apply a spec rule, except on first step.
-                    if (step > 1) {
-                        ConstrainedTerm result = applySpecRules(term, step);
-                        if (result != null) {
-                            nextStepLogEnabled = true;
+                        //Apply a regular rule
+                        List<ConstrainedTerm> results = frontierStep != null
+                                                        ? frontierStep.results
+                                                        : fastComputeRewriteStep(term, false, true, true, step,
+                                                                initialTerm);
+                        if (results.isEmpty()) {
                             logStep(step, v, term, true, alreadyLogged, initialTerm);
-                            // re-running constraint generation again for debug purposes
                             if (global.javaExecutionOptions.logBasic) {
-                                System.err.println("\nApplying specification rule\n=========================\n");
+                                System.err.println("\nStep above: " + step + ", evaluation ended with no successors.");
                             }
-                            if (visited.add(result)) {
-                                nextQueue.add(result);
-                            } else {
-                                if (term.equals(result)) {
-                                    throw KEMException.criticalError(
-                                            "Step " + step + ": infinite loop after applying a spec rule.");
-                                }
+                            if (step == 1) {
+                                kem.registerCriticalWarning(ExceptionType.PROOF_LINT, "Evaluation ended on 1st step. " +
+                                        "Possible cause: non-functional term in constraint (path condition).");
                             }
-                            continue;
-                        }
-                    }
-
-                    //Apply a regular rule
-                    List<ConstrainedTerm> results = fastComputeRewriteStep(term, false, true, true, step,
-                            initialTerm);
-                    if (results.isEmpty()) {
-                        logStep(step, v, term, true, alreadyLogged, initialTerm);
-                        if (global.javaExecutionOptions.logBasic) {
-                            System.err.println("\nStep above: " + step + ", evaluation ended with no successors.");
-                        }
-                        if (step == 1) {
-                            kem.registerCriticalWarning(ExceptionType.PROOF_LINT, "Evaluation ended on 1st step. " +
-                                    "Possible cause: non-functional term in constraint (path condition).");
+                            /* final term */
+                            proofResults.add(term);
                         }
-                        /* final term */
-                        proofResults.add(term);
-                    }
 
-                    if (results.size() > 1) {
-                        nextStepLogEnabled = true;
-                        logStep(step, v, term, true, alreadyLogged, initialTerm);
-                        if (branchingRemaining == 0) {
-                            System.err.println("\nHalt on branching!\n=====================\n");
+                        if (results.size() > 1) {
+                            nextStepLogEnabled = true;
+                            logStep(step, v, term, true, alreadyLogged, initialTerm);
+                            if (branchingRemaining == 0) {
+                                System.err.println("\nHalt on branching!\n=====================\n");
 
-                            proofResults.addAll(results);
-                            continue;
-                        } else {
-                            branchingRemaining--;
-                            if (global.javaExecutionOptions.logBasic) {
-                                System.err.println("\nBranching!\n=====================\n");
+                                proofResults.addAll(results);
+                                continue;
+                            } else {
+                                branchingRemaining--;
+                                if (global.javaExecutionOptions.logBasic) {
+                                    System.err.println("\nBranching!\n=====================\n");
+                                }
                             }
                         }
-                    }
-                    //Build results of regular rule application
-                    for (ConstrainedTerm cterm : results) {
-                        ConstrainedTerm result = new ConstrainedTerm(
-                                cterm.term(),
-                                cterm.constraint().retainSubstitutionVars(initialTerm.variableSet()),
-                                cterm.termContext());
-                        if (visited.add(result)) {
-                            nextQueue.add(result);
+                        //Build results of regular rule application
+                        for (ConstrainedTerm cterm : results) {
+                            ConstrainedTerm result = new ConstrainedTerm(
+                                    cterm.term(),
+                                    cterm.constraint().retainSubstitutionVars(initialTerm.variableSet()),
+                                    cterm.termContext());
+                            if (visited.add(result)) {
+                                nextQueue.add(result);
+                            }
                         }
-                    }
 
-                    if (Thread.currentThread().isInterrupted()) {
-                        throw KEMException.criticalError("Thread interrupted");
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw KEMException.criticalError("Thread interrupted");
+                        }
+                    } catch (OutOfMemoryError e) {
+                        e.printStackTrace(); //to avoid hiding this exception in case another OOMError is thrown.
+                        //Activate cache profiling to see which cache caused the error.
+                        global.javaExecutionOptions.profileMemAdv = true;
+                        printSummaryBox(rule, proofResults, successPaths, step, queue.size() + nextQueue.size() - v + 1);
+                        throw e;
+                        // DISABLE EXCEPTION CHECKSTYLE
+                    } catch (RuntimeException | AssertionError | StackOverflowError e) {
+                        // ENABLE EXCEPTION CHECKSTYLE
+                        logStep(step, v, term, true, alreadyLogged, initialTerm);
+                        System.err.println("\n" +
+                                "==========================================\n" +
+                                "Top term when exception was thrown:\n" +
+                                "==========================================\n");
+                        printTermAndConstraint(term, false, initialTerm);
+                        printSummaryBox(rule, proofResults, successPaths, step, queue.size() + nextQueue.size() - v + 1);
+                        throw e;
                     }
-                } catch (OutOfMemoryError e) {
-                    e.printStackTrace(); //to avoid hiding this exception in case another OOMError is thrown.
-                    //Activate cache profiling to see which cache caused the error.
-                    global.javaExecutionOptions.profileMemAdv = true;
-                    printSummaryBox(rule, proofResults, successPaths, step, queue.size() + nextQueue.size() - v + 1);
-                    throw e;
-                    // DISABLE EXCEPTION CHECKSTYLE
-                } catch (RuntimeException | AssertionError | StackOverflowError e) {
-                    // ENABLE EXCEPTION CHECKSTYLE
-                    logStep(step, v, term, true, alreadyLogged, initialTerm);
-                    System.err.println("\n" +
-                            "==========================================\n" +
-                            "Top term when exception was thrown:\n" +
-                            "==========================================\n");
-                    printTermAndConstraint(term, false, initialTerm);
-                    printSummaryBox(rule, proofResults, successPaths, step, queue.size() + nextQueue.size() - v + 1);
-                    throw e;
                 }
-            }
 
-            /* swap the queues */
-            List<ConstrainedTerm> temp;
-            temp = queue;
-            queue = nextQueue;
-            nextQueue = temp;
-            nextQueue.clear();
+                /* swap the queues */
+                List<ConstrainedTerm> temp;
+                temp = queue;
+                queue = nextQueue;
+                nextQueue = temp;
+                nextQueue.clear();
 
-            global.javaExecutionOptions.log = originalLog;
+                logCurrentStep = false;
+            }
+        } finally {
+            if (frontierPool != null) {
+                frontierPool.shutdown();
+            }
         }
 
         List<ConstrainedTerm> tweakedProofResults =
@@ -821,6 +1025,135 @@ public class SymbolicRewriter {
         return tweakedProofResults;
     }
 
+    /**
+     * The computations {@link #proveRule} performs on a single term of the frontier: final implication, spec rule
+     * application and regular rule application, in this order, stopping at the first one that decides the fate of the
+     * term. Used to explore all terms of a frontier in parallel, before processing the results sequentially, in
+     * frontier order. Fields that are not reached by the sequential processing are not computed.
+     * <p>
+     * {@link #search} only computes the rewrite step results.
+     */
+    private static final class FrontierStep {
+        private boolean boundaryCellsMatchTarget;
+        private boolean implies;
+        private ConstrainedTerm specResult;
+        private List<ConstrainedTerm> results;
+        private Throwable failure;
+
+        private RuntimeException rethrowFailure() {
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            return (RuntimeException) failure;
+        }
+    }
+
+    /**
+     * Gives each term its own {@link TermContext}, since the context holds the top term and constraint of the term
+     * being rewritten. Each term also gets its own fresh counter, so the fresh values generated on a path do not
+     * depend on the order in which the frontier is explored.
+     */
+    private List<ConstrainedTerm> forkTermContexts(List<ConstrainedTerm> queue) {
+        List<ConstrainedTerm> result = new ArrayList<>(queue.size());
+        for (ConstrainedTerm term : queue) {
+            result.add(new ConstrainedTerm(term.term(), term.constraint(), term.termContext().fork()));
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #forkTermContexts(List)}, keeping the depth of each term of a search queue.
+     */
+    private Map<ConstrainedTerm, Integer> forkTermContexts(Map<ConstrainedTerm, Integer> queue) {
+        Map<ConstrainedTerm, Integer> result = Maps.newLinkedHashMap();
+        for (Map.Entry<ConstrainedTerm, Integer> entry : queue.entrySet()) {
+            ConstrainedTerm term = entry.getKey();
+            result.put(new ConstrainedTerm(term.term(), term.constraint(), term.termContext().fork()),
+                    entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * @return the steps for all terms of the queue, in queue order.
+     */
+    private List<FrontierStep> computeFrontierSteps(ForkJoinPool frontierPool, List<ConstrainedTerm> queue,
+                                                    Rule rule, ConstrainedTerm targetTerm,
+                                                    @Nullable Rule boundaryPattern,
+                                                    List<Substitution<Variable, Term>> targetBoundarySub, int step,
+                                                    ConstrainedTerm initialTerm) {
+        return computeInFrontierPool(frontierPool, queue,
+                term -> computeFrontierStep(term, rule, targetTerm, boundaryPattern, targetBoundarySub, step,
+                        initialTerm));
+    }
+
+    /**
+     * @return the rewrite step results for all terms of a search queue, in queue order.
+     */
+    private List<FrontierStep> computeSearchSteps(ForkJoinPool frontierPool, List<ConstrainedTerm> queue, int step,
+                                                  ConstrainedTerm initTerm) {
+        return computeInFrontierPool(frontierPool, queue, term -> {
+            FrontierStep frontierStep = new FrontierStep();
+            try {
+                frontierStep.results = computeRewriteStep(term, step, false, initTerm);
+                // DISABLE EXCEPTION CHECKSTYLE
+            } catch (RuntimeException | AssertionError | StackOverflowError e) {
+                // ENABLE EXCEPTION CHECKSTYLE
+                frontierStep.failure = e;
+            }
+            return frontierStep;
+        });
+    }
+
+    private List<FrontierStep> computeInFrontierPool(ForkJoinPool frontierPool, List<ConstrainedTerm> queue,
+                                                     Function<ConstrainedTerm, FrontierStep> computeStep) {
+        try {
+            return frontierPool.submit(() -> queue.parallelStream()
+                    .map(computeStep)
+                    .collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw KEMException.criticalError("Thread interrupted");
+        } catch (ExecutionException e) {
+            //Failures of individual terms are recorded in their FrontierStep, only errors such as OOM get here.
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw KEMException.criticalError("Exception while exploring frontier", e.getCause());
+        }
+    }
+
+    private FrontierStep computeFrontierStep(ConstrainedTerm term, Rule rule, ConstrainedTerm targetTerm,
+                                             @Nullable Rule boundaryPattern,
+                                             List<Substitution<Variable, Term>> targetBoundarySub, int step,
+                                             ConstrainedTerm initialTerm) {
+        FrontierStep frontierStep = new FrontierStep();
+        try {
+            term.termContext().setTopConstraint(null);
+            frontierStep.boundaryCellsMatchTarget =
+                    boundaryCellsMatchTarget(term, boundaryPattern, targetBoundarySub, step);
+            if (boundaryPattern == null || frontierStep.boundaryCellsMatchTarget) {
+                frontierStep.implies = term.implies(targetTerm, rule, !(boundaryPattern == null));
+                if (frontierStep.implies || (boundaryPattern != null && step > 1)) {
+                    return frontierStep;
+                }
+            }
+            if (step > 1) {
+                frontierStep.specResult = applySpecRules(term, step);
+                if (frontierStep.specResult != null) {
+                    return frontierStep;
+                }
+            }
+            frontierStep.results = fastComputeRewriteStep(term, false, true, true, step, initialTerm);
+            // DISABLE EXCEPTION CHECKSTYLE
+        } catch (RuntimeException | AssertionError | StackOverflowError e) {
+            // ENABLE EXCEPTION CHECKSTYLE
+            frontierStep.failure = e;
+        }
+        return frontierStep;
+    }
+
     /**
      * Print formatted failure final states, when {@code javaExecutionOptions.formatFailures} is true.
      *
@@ -947,6 +1280,12 @@ public class SymbolicRewriter {
 
     private TimeMemoryEntry prevStats;
 
+    /**
+     * Whether {@link #proveRule} logs the current step in full, in addition to {@code --log}. Kept in the rewriter
+     * rather than in the options, which are shared by the claims proved in parallel.
+     */
+    private boolean logCurrentStep;
+
     /**
      * @param forced - if true, log this step when at least --log-basic is provided.
      * @param initTerm
@@ -960,14 +1299,15 @@ public class SymbolicRewriter {
         global.profiler.logOverheadTimer.start();
         KItem top = (KItem) term.term();
 
-        if (global.javaExecutionOptions.log || forced || global.javaExecutionOptions.logRulesPublic) {
+        boolean log = global.javaExecutionOptions.log || logCurrentStep;
+        if (log || forced || global.javaExecutionOptions.logRulesPublic) {
             TimeMemoryEntry now = new TimeMemoryEntry(false);
             System.err.format("\nSTEP %d v%d : %s\n===================\n",
                     step, v, global.profiler.stepLogString(now, prevStats));
             prevStats = now;
         }
 
-        boolean actuallyLogged = global.javaExecutionOptions.log || forced;
+        boolean actuallyLogged = log || forced;
         if (actuallyLogged) {
             for (String cellName : cellsToLog.keySet()) {
                 boolean pretty = cellsToLog.get(cellName);
@@ -1105,7 +1445,7 @@ public class SymbolicRewriter {
         }
         //Work in progress: spec rules automaton. Use in for loop below.
         /*List<Pair<Rule, Integer>> automatonMatchedRules =
-                theFastMatcher.matchWithAutomaton(constrainedTerm, definition.specAutomaton());
+                theFastMatcher.get().matchWithAutomaton(constrainedTerm, definition.specAutomaton());
 
         if (global.javaExecutionOptions.logRulesPublic && !automatonMatchedRules.isEmpty()) {
             System.err.format("\nSpec rule application, rules matched by automaton: %d\n" +
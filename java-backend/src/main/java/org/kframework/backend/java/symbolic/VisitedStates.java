@@ -0,0 +1,89 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.kframework.backend.java.kil.ConstrainedTerm;
+import org.kframework.backend.java.util.FingerprintSet;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The states already explored by {@link SymbolicRewriter#search}.
+ * <p>
+ * By default the states themselves are kept. With {@code --search-fingerprints} only their 128-bit fingerprints are,
+ * which takes 16 to 32 bytes per state instead of a whole configuration. With {@code --search-verify-fingerprints}
+ * both are kept, and states that are new but have the fingerprint of an earlier state are counted as collisions.
+ */
+class VisitedStates {
+
+    private final Set<ConstrainedTerm> states;
+    private final FingerprintSet fingerprints;
+    private int collisions;
+
+    VisitedStates(JavaExecutionOptions options) {
+        fingerprints = options.searchFingerprints ? new FingerprintSet(options.searchFingerprintsOffHeap) : null;
+        states = fingerprints == null || options.searchVerifyFingerprints ? new HashSet<>() : null;
+    }
+
+    /**
+     * @return true if the state was not visited before.
+     */
+    boolean add(ConstrainedTerm state) {
+        if (fingerprints == null) {
+            return states.add(state);
+        }
+        long[] fingerprint = StateFingerprint.of(state);
+        boolean newFingerprint = fingerprints.add(fingerprint[0], fingerprint[1]);
+        if (states == null) {
+            return newFingerprint;
+        }
+        boolean newState = states.add(state);
+        if (newState && !newFingerprint) {
+            collisions++;
+        }
+        return newState;
+    }
+
+    int size() {
+        return states != null ? states.size() : fingerprints.size();
+    }
+
+    int collisions() {
+        return collisions;
+    }
+
+    /**
+     * @return the state itself, or with {@code --search-fingerprints} its fingerprint, as a key for other collections
+     * of states.
+     */
+    static Object key(ConstrainedTerm state, JavaExecutionOptions options) {
+        if (!options.searchFingerprints) {
+            return state;
+        }
+        long[] fingerprint = StateFingerprint.of(state);
+        return new Fingerprint(fingerprint[0], fingerprint[1]);
+    }
+
+    private static final class Fingerprint {
+        private final long high;
+        private final long low;
+
+        Fingerprint(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Fingerprint)) return false;
+            Fingerprint that = (Fingerprint) o;
+            return high == that.high && low == that.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high) * 31 + Long.hashCode(low);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe hit/miss/store/eviction counters of a cache, printed by {@link Profiler2}.
+ */
+public class CacheStats {
+
+    private final String name;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CacheStats(String name) {
+        this.name = name;
+    }
+
+    public void hit() {
+        hits.incrementAndGet();
+    }
+
+    public void miss() {
+        misses.incrementAndGet();
+    }
+
+    public void store() {
+        stores.incrementAndGet();
+    }
+
+    public void evict() {
+        evictions.incrementAndGet();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getStores() {
+        return stores.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public void print(String prefix) {
+        long hits = getHits();
+        long misses = getMisses();
+        if (hits + misses == 0) {
+            return;
+        }
+        System.err.format("%s%-33s: hits %10d, misses %10d, hit rate %5.1f%%\n", prefix, name, hits, misses,
+                100.0 * hits / (hits + misses));
+        if (getStores() != 0 || getEvictions() != 0) {
+            System.err.format("%s%-33s: stores %8d, evictions %7d\n", prefix, "", getStores(), getEvictions());
+        }
+    }
+}
@@ -25,10 +25,12 @@ public class Counter {
     }
 
     public void increment() {
-        if (level.intValue() == 1) {
-            countTop++;
-        } else {
-            countRecursive++;
+        synchronized (level) {
+            if (level.intValue() == 1) {
+                countTop++;
+            } else {
+                countRecursive++;
+            }
         }
     }
 
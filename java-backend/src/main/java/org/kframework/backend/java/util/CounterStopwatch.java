@@ -10,6 +10,9 @@ import java.util.List;
 /**
  * A stopwatch that can be reentered recursively. Also counts the number of top-level invocations.
  * Time counted in nanoseconds, but displayed in ms.
+ * <p>
+ * Updates are synchronized on the level holder, which may be shared with other stopwatches and counters. When used
+ * from several threads, the stopwatch measures the time when at least one thread is inside it.
  *
  * @author Denis Bogdanas
  * Created on 24-Jul-18.
@@ -48,25 +51,29 @@ public class CounterStopwatch implements Comparable<CounterStopwatch> {
     }
 
     public void start() {
-        if (level.intValue() == 0) {
-            lastStartNano = System.nanoTime();
-            countTop++;
-        } else {
-            countRecursive++;
+        synchronized (level) {
+            if (level.intValue() == 0) {
+                lastStartNano = System.nanoTime();
+                countTop++;
+            } else {
+                countRecursive++;
+            }
+            level.increment();
         }
-        level.increment();
     }
 
     /**
      * Should be called in a finally block to avoid exceptions leaving the level incremented.
      */
     public void stop() {
-        level.decrement();
-        int level = this.level.intValue();
-        if (level == 0) {
-            duration += (System.nanoTime() - lastStartNano);
-        } else if (level < 0) {
-            throw new AssertionError("Unable to stop timer: " + name + "\nTimer already stopped.");
+        synchronized (this.level) {
+            this.level.decrement();
+            int level = this.level.intValue();
+            if (level == 0) {
+                duration += (System.nanoTime() - lastStartNano);
+            } else if (level < 0) {
+                throw new AssertionError("Unable to stop timer: " + name + "\nTimer already stopped.");
+            }
         }
     }
 
@@ -76,16 +83,29 @@ public class CounterStopwatch implements Comparable<CounterStopwatch> {
      * Should be called in a finally block to avoid exceptions leaving the level incremented.
      */
     public long stopAndGetDuration() {
-        level.decrement();
-        int level = this.level.intValue();
-        if (level == 0) {
-            long lastDuration = System.nanoTime() - lastStartNano;
-            this.duration += lastDuration;
-            return lastDuration;
-        } else if (level < 0) {
-            throw new AssertionError("Unable to stop timer: " + name + "\nTimer already stopped.");
+        synchronized (this.level) {
+            this.level.decrement();
+            int level = this.level.intValue();
+            if (level == 0) {
+                long lastDuration = System.nanoTime() - lastStartNano;
+                this.duration += lastDuration;
+                return lastDuration;
+            } else if (level < 0) {
+                throw new AssertionError("Unable to stop timer: " + name + "\nTimer already stopped.");
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Records a top-level run measured outside of this stopwatch. Useful when runs overlap, e.g. when measured
+     * from several threads.
+     */
+    public void addRun(long durationNano) {
+        synchronized (level) {
+            duration += durationNano;
+            countTop++;
         }
-        return 0;
     }
 
     public void reset() {
@@ -0,0 +1,136 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.kframework.utils.errorsystem.KEMException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * A set of 128-bit fingerprints, stored as pairs of longs in an open-addressing hash table.
+ * <p>
+ * The table may be kept off the Java heap, so that it does not count against the heap size and is not scanned by
+ * the garbage collector. Fingerprints are assumed to be uniformly distributed, as the ones computed by
+ * {@link org.kframework.backend.java.symbolic.StateFingerprint} are.
+ */
+public class FingerprintSet {
+
+    static final int INITIAL_CAPACITY = 1 << 10;
+
+    /**
+     * Off-heap buffers are allocated with an int size, so they hold less than 2^27 slots of 16 bytes.
+     */
+    static final int MAX_CAPACITY_OFF_HEAP = 1 << 26;
+    static final int MAX_CAPACITY_ON_HEAP = 1 << 29;
+
+    private final boolean offHeap;
+    private final int maxCapacity;
+    private LongBuffer table;
+    private int capacity;
+    private int size;
+
+    public FingerprintSet(boolean offHeap) {
+        this(offHeap, offHeap ? MAX_CAPACITY_OFF_HEAP : MAX_CAPACITY_ON_HEAP);
+    }
+
+    FingerprintSet(boolean offHeap, int maxCapacity) {
+        this.offHeap = offHeap;
+        this.maxCapacity = maxCapacity;
+        this.capacity = INITIAL_CAPACITY;
+        this.table = allocate(capacity);
+    }
+
+    /**
+     * @return true if the fingerprint was not already in the set.
+     * @throws org.kframework.utils.errorsystem.KEMException if the fingerprint is new and the table is 3/4 full at
+     * its maximal capacity.
+     */
+    public synchronized boolean add(long high, long low) {
+        if (high == 0 && low == 0) {
+            //(0, 0) marks empty slots.
+            low = 1;
+        }
+        if (size >= capacity / 4 * 3) {
+            if (capacity >= maxCapacity) {
+                if (contains(table, capacity, high, low)) {
+                    return false;
+                }
+                throw KEMException.criticalError("Too many states to remember: " + size);
+            }
+            grow();
+        }
+        if (insert(table, capacity, high, low)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized boolean contains(long high, long low) {
+        if (high == 0 && low == 0) {
+            low = 1;
+        }
+        return contains(table, capacity, high, low);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    synchronized int capacity() {
+        return capacity;
+    }
+
+    private static boolean contains(LongBuffer table, int capacity, long high, long low) {
+        int mask = capacity - 1;
+        for (int slot = (int) low & mask; ; slot = (slot + 1) & mask) {
+            long slotHigh = table.get(2 * slot);
+            long slotLow = table.get(2 * slot + 1);
+            if (slotHigh == high && slotLow == low) {
+                return true;
+            }
+            if (slotHigh == 0 && slotLow == 0) {
+                return false;
+            }
+        }
+    }
+
+    private static boolean insert(LongBuffer table, int capacity, long high, long low) {
+        int mask = capacity - 1;
+        for (int slot = (int) low & mask; ; slot = (slot + 1) & mask) {
+            long slotHigh = table.get(2 * slot);
+            long slotLow = table.get(2 * slot + 1);
+            if (slotHigh == 0 && slotLow == 0) {
+                table.put(2 * slot, high);
+                table.put(2 * slot + 1, low);
+                return true;
+            }
+            if (slotHigh == high && slotLow == low) {
+                return false;
+            }
+        }
+    }
+
+    private void grow() {
+        int newCapacity = capacity * 2;
+        LongBuffer newTable = allocate(newCapacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            long high = table.get(2 * slot);
+            long low = table.get(2 * slot + 1);
+            if (high != 0 || low != 0) {
+                insert(newTable, newCapacity, high, low);
+            }
+        }
+        table = newTable;
+        capacity = newCapacity;
+    }
+
+    private LongBuffer allocate(int capacity) {
+        if (offHeap) {
+            return ByteBuffer.allocateDirect(capacity * 16).order(ByteOrder.nativeOrder()).asLongBuffer();
+        } else {
+            return LongBuffer.wrap(new long[capacity * 2]);
+        }
+    }
+}
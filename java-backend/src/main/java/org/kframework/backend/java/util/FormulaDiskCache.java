@@ -0,0 +1,96 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent cache of the truth values of simplified formulas, shared between runs on the same definition.
+ * <p>
+ * The cache is an append-only text file in the kompiled directory with one {@code <key> <true|false>} entry per
+ * line, loaded into memory when the cache is first opened. Keys are computed by {@link FormulaSimplificationCache}.
+ * The file is discarded if it is older than the kompiled definition.
+ */
+public class FormulaDiskCache {
+
+    public static final String FILE_NAME = "formula-cache.txt";
+
+    private static final Map<File, FormulaDiskCache> caches = new HashMap<>();
+
+    private final File file;
+    private final Map<String, Boolean> entries = new ConcurrentHashMap<>();
+    private Writer writer;
+
+    private FormulaDiskCache(File file, long definitionTimestamp) {
+        this.file = file;
+        if (file.exists() && file.lastModified() < definitionTimestamp) {
+            file.delete();
+        }
+        load();
+    }
+
+    /**
+     * @param definitionTimestamp the modification time of the kompiled definition.
+     */
+    public static synchronized FormulaDiskCache of(File directory, long definitionTimestamp) {
+        File file = new File(directory, FILE_NAME).getAbsoluteFile();
+        return caches.computeIfAbsent(file, f -> new FormulaDiskCache(f, definitionTimestamp));
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                if (parts.length != 2 || !(parts[1].equals("true") || parts[1].equals("false"))) {
+                    //Truncated or corrupt line, e.g. from an interrupted run.
+                    continue;
+                }
+                entries.put(parts[0], Boolean.valueOf(parts[1]));
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read formula cache: " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return the cached truth value, or null if there is none.
+     */
+    public Boolean get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * @return true if the entry was stored.
+     */
+    public synchronized boolean put(String key, boolean value) {
+        if (entries.putIfAbsent(key, value) != null) {
+            return false;
+        }
+        try {
+            if (writer == null) {
+                file.getParentFile().mkdirs();
+                writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+            }
+            writer.write(key + " " + value + "\n");
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Could not write formula cache: " + file.getAbsolutePath());
+        }
+        return true;
+    }
+}
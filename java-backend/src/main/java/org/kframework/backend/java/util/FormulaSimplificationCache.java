@@ -1,16 +1,36 @@
 // Copyright (c) 2019 K Team. All Rights Reserved.
 package org.kframework.backend.java.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.Rule;
 import org.kframework.backend.java.kil.TermContext;
 import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.symbolic.AlphaNormalHash;
 import org.kframework.backend.java.symbolic.ConjunctiveFormula;
+import org.kframework.backend.java.symbolic.TruthValue;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
+ * Cache of results of {@link ConjunctiveFormula#simplify}, in two levels.
+ * <p>
+ * The first level is in memory, optionally bounded by {@code --cache-formulas-max-entries}. With
+ * {@code --cache-formulas-persist}, the second level is a {@link FormulaDiskCache} in the kompiled directory, shared
+ * between runs. It only remembers simplifications that result in true or false, keyed by an {@link AlphaNormalHash}
+ * of the simplification arguments and a hash of the rules used by simplification, which may differ between kprove
+ * specifications.
+ *
  * @author Denis Bogdanas
  * Created on 11-Nov-18.
  */
@@ -49,39 +69,140 @@ public class FormulaSimplificationCache {
         public int hashCode() {
             return Objects.hash(formula, patternFolding, partialSimplification, constraint, rhsOnlyVariables);
         }
+
+        String diskKey(String definitionKey) {
+            return AlphaNormalHash.of(definitionKey + " " + patternFolding + " " + partialSimplification,
+                    Arrays.asList(formula, constraint), rhsOnlyVariables);
+        }
+    }
+
+    public final CacheStats stats = new CacheStats("Formula cache");
+    public final CacheStats diskStats = new CacheStats("Formula disk cache");
+
+    private final Cache<Entry, ConjunctiveFormula> evaluationCache;
+
+    private FormulaDiskCache diskCache;
+    private Definition keyedDefinition;
+    private String definitionKey;
+
+    public FormulaSimplificationCache() {
+        this(0);
     }
 
-    private Map<Entry, ConjunctiveFormula> evaluationCache = new HashMap<>();
+    /**
+     * @param maxEntries the maximal number of entries in memory, or 0 for no limit.
+     */
+    public FormulaSimplificationCache(long maxEntries) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors());
+        if (maxEntries > 0) {
+            builder = builder.maximumSize(maxEntries);
+        }
+        evaluationCache = builder
+                .removalListener((RemovalListener<Entry, ConjunctiveFormula>) notification -> {
+                    if (notification.wasEvicted()) {
+                        stats.evict();
+                    }
+                })
+                .build();
+    }
 
     public ConjunctiveFormula cacheGet(ConjunctiveFormula formula, boolean patternFolding,
                                        boolean partialSimplification,
                                        Set<Variable> rhsOnlyVariables,
                                        TermContext context) {
-        return context.global().javaExecutionOptions.cacheFormulas
-               ? evaluationCache
-                       .get(new Entry(formula, patternFolding, partialSimplification, context.getTopConstraint(),
-                               rhsOnlyVariables))
-               : null;
+        if (!context.global().javaExecutionOptions.cacheFormulas) {
+            return null;
+        }
+        Entry entry = new Entry(formula, patternFolding, partialSimplification, context.getTopConstraint(),
+                rhsOnlyVariables);
+        ConjunctiveFormula result = evaluationCache.getIfPresent(entry);
+        if (result != null) {
+            stats.hit();
+            return result;
+        }
+        stats.miss();
+
+        FormulaDiskCache diskCache = diskCache(context.global());
+        if (diskCache == null) {
+            return null;
+        }
+        Boolean truthValue = diskCache.get(entry.diskKey(definitionKey(context.global())));
+        if (truthValue == null) {
+            diskStats.miss();
+            return null;
+        }
+        diskStats.hit();
+        result = truthValue
+                 ? ConjunctiveFormula.of(context.global())
+                 : new ConjunctiveFormula(formula.substitution(), formula.equalities(), formula.disjunctions(),
+                         TruthValue.FALSE, context.global());
+        evaluationCache.put(entry, result);
+        return result;
     }
 
     public void cachePut(ConjunctiveFormula formula, boolean patternFolding, boolean partialSimplification,
                          TermContext context, Set<Variable> rhsOnlyVariables,
                          ConjunctiveFormula result) {
         if (context.global().javaExecutionOptions.cacheFormulas) {
-            evaluationCache.put(
-                    new Entry(formula, patternFolding, partialSimplification, context.getTopConstraint(),
-                            rhsOnlyVariables), result);
+            Entry entry = new Entry(formula, patternFolding, partialSimplification, context.getTopConstraint(),
+                    rhsOnlyVariables);
+            evaluationCache.put(entry, result);
             evaluationCache.put(
                     new Entry(result, patternFolding, partialSimplification, context.getTopConstraint(),
                             rhsOnlyVariables), result);
+            stats.store();
+
+            FormulaDiskCache diskCache = diskCache(context.global());
+            if (diskCache != null && (result.isTrue() || result.isFalse())
+                    && diskCache.put(entry.diskKey(definitionKey(context.global())), result.isTrue())) {
+                diskStats.store();
+            }
+        }
+    }
+
+    private synchronized FormulaDiskCache diskCache(GlobalContext global) {
+        if (diskCache == null && global.javaExecutionOptions.cacheFormulasPersist) {
+            diskCache = FormulaDiskCache.of(global.files.resolveKompiled("."),
+                    global.files.resolveKompiled("timestamp").lastModified());
+        }
+        return diskCache;
+    }
+
+    /**
+     * @return a hash of the rules that may be applied during simplification.
+     */
+    private synchronized String definitionKey(GlobalContext global) {
+        Definition definition = global.getDefinition();
+        if (definition != keyedDefinition) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                Stream.of(definition.functionRules().values().stream(),
+                        definition.anywhereRules().values().stream(),
+                        definition.patternRules().values().stream(),
+                        definition.patternFoldingRules().stream())
+                        .flatMap(s -> s)
+                        .map(Rule::toString)
+                        .sorted()
+                        .forEach(s -> {
+                            digest.update(s.getBytes(StandardCharsets.UTF_8));
+                            digest.update((byte) 0);
+                        });
+                definitionKey = String.format("%064x", new BigInteger(1, digest.digest()));
+                keyedDefinition = definition;
+            } catch (NoSuchAlgorithmException e) {
+                throw new AssertionError(e);
+            }
         }
+        return definitionKey;
     }
 
     public void clear() {
-        evaluationCache.clear();
+        evaluationCache.invalidateAll();
+        evaluationCache.cleanUp();
     }
 
     public int size() {
-        return evaluationCache.size();
+        return (int) evaluationCache.size();
     }
 }
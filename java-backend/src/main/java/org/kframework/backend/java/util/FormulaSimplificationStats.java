@@ -0,0 +1,30 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe counters of the equalities re-normalized and skipped by incremental formula simplification, printed by
+ * {@link Profiler2}.
+ */
+public class FormulaSimplificationStats {
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong normalized = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public void record(int normalized, int skipped) {
+        this.calls.incrementAndGet();
+        this.normalized.addAndGet(normalized);
+        this.skipped.addAndGet(skipped);
+    }
+
+    public void print(String prefix) {
+        long calls = this.calls.get();
+        if (calls == 0) {
+            return;
+        }
+        System.err.format("%s%-33s: calls %9d, equalities per call: normalized %8.1f, skipped %8.1f\n", prefix,
+                "Formula simplification", calls, (double) normalized.get() / calls, (double) skipped.get() / calls);
+    }
+}
@@ -57,6 +57,11 @@ public class Profiler2 {
     public final CounterStopwatch queryBuildTimer = new CounterStopwatch("query build time");
     public final CounterStopwatch impliesSMTTimer = new CounterStopwatch("impliesSMT time");
 
+    public final CacheStats z3QueryCacheStats = new CacheStats("Z3 query disk cache");
+    public final CacheStats implicationCoreCacheStats = new CacheStats("Implication core cache");
+    public final RuleIndexStats ruleIndexStats = new RuleIndexStats();
+    public final FormulaSimplificationStats formulaSimplificationStats = new FormulaSimplificationStats();
+
     final Map<FormulaContext.Kind, Z3Profiler> z3Profilers = createZ3Profilers();
 
     private Map<FormulaContext.Kind, Z3Profiler> createZ3Profilers() {
@@ -101,6 +106,11 @@ public class Profiler2 {
         for (Z3Profiler profiler : z3Profilers.values()) {
             profiler.print();
         }
+        z3QueryCacheStats.print("  ");
+        context.constraintOps.sliceCacheStats.print("  ");
+        implicationCoreCacheStats.print("  ");
+        ruleIndexStats.print("  ");
+        formulaSimplificationStats.print("  ");
 
         System.err.format("\n  Time and top-level event counts:\n");
         printTimer("  ", resFuncNanoTimer, "remaining time & # cached", true);
@@ -166,6 +176,11 @@ public class Profiler2 {
     }
 
     private void printCacheStats(TimeMemoryEntry currentStats, boolean afterExecution, GlobalContext context) {
+        context.functionCache.stats.print("");
+        context.termInterner.stats.print("");
+        context.formulaCache.stats.print("");
+        context.formulaCache.diskStats.print("");
+        context.smtlibCache.stats.print("");
         //Measure cache after initialization phase only if it's going to be cleared by --cache-func-optimized.
         if (javaExecutionOptions.profileMemAdv &&
                 (afterExecution || javaExecutionOptions.cacheFunctionsOptimized)) {
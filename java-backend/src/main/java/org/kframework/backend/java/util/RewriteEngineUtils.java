@@ -72,8 +72,9 @@ public class RewriteEngineUtils {
         for (Equality equality : rule.lookups().equalities()) {
             Term lookupOrChoice = equality.leftHandSide();
             Term nonLookupOrChoice =  equality.rightHandSide();
-            List<RHSInstruction> instructions = rule.instructionsOfLookups().get(i);
-            Term evalLookupOrChoice = construct(instructions, crntSubst, context);
+            Term evalLookupOrChoice = context.global().javaExecutionOptions.compileRHS
+                                      ? rule.compiledLookups().get(i).construct(crntSubst, context)
+                                      : construct(rule.instructionsOfLookups().get(i), crntSubst, context);
 
             boolean resolved = false;
             if (evalLookupOrChoice instanceof Bottom
@@ -140,7 +141,9 @@ public class RewriteEngineUtils {
                 // TODO(YilongL): in the future, we may have to accumulate
                 // the substitution obtained from evaluating the side
                 // condition
-                Term evaluatedReq = construct(rule.instructionsOfRequires().get(i), crntSubst, context);
+                Term evaluatedReq = context.global().javaExecutionOptions.compileRHS
+                                    ? rule.compiledRequires().get(i).construct(crntSubst, context)
+                                    : construct(rule.instructionsOfRequires().get(i), crntSubst, context);
                 if (!evaluatedReq.equals(BoolToken.TRUE)) {
                     if (!evaluatedReq.isGround()
                             && context.getTopConstraint() != null
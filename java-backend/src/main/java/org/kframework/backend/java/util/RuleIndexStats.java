@@ -0,0 +1,30 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe counters of the candidate rules left by {@link org.kframework.backend.java.kil.RuleIndex} at each
+ * rewrite step, printed by {@link Profiler2}.
+ */
+public class RuleIndexStats {
+
+    private final AtomicLong steps = new AtomicLong();
+    private final AtomicLong candidates = new AtomicLong();
+    private final AtomicLong rules = new AtomicLong();
+
+    public void record(int candidates, int rules) {
+        this.steps.incrementAndGet();
+        this.candidates.addAndGet(candidates);
+        this.rules.addAndGet(rules);
+    }
+
+    public void print(String prefix) {
+        long steps = this.steps.get();
+        if (steps == 0) {
+            return;
+        }
+        System.err.format("%s%-33s: steps %9d, candidates per step %8.1f of %8.1f\n", prefix, "Rule index", steps,
+                (double) candidates.get() / steps, (double) rules.get() / steps);
+    }
+}
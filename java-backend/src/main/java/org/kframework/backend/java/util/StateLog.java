@@ -1,50 +1,94 @@
 // Copyright (c) 2018-2019 K Team. All Rights Reserved.
 package org.kframework.backend.java.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.kframework.backend.java.symbolic.JavaExecutionOptions;
 import org.kframework.kore.K;
 import org.kframework.unparser.KPrint;
 import org.kframework.unparser.OutputModes;
 import org.kframework.utils.file.FileUtil;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
-import java.math.BigInteger;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Log of symbolic execution events, for debugging.
+ * <p>
+ * Events are queued in a bounded buffer and written by a background thread, which flushes the log once per batch of
+ * queued events. Terms are identified by the SHA-256 hash of their KAST serialization and pretty-printed once per
+ * session, into a single container file of {@code <hash> <length> <bytes>} records, or with
+ * {@code --state-log-blob-files} into one file per term.
+ */
 public class StateLog {
 
     // *ALL* `public` methods *MUST* return `void` and have their first line be `if (! this.loggingOn) return;`
     private final boolean        loggingOn;
     private final File           loggingPath;
-    private final File           blobsDir;
     private final List<LogEvent> logEvents;
+    private final boolean        blobFiles;
+    private final int            bufferSize;
 
     private String              sessionId;
-    private PrintWriter         sessionLog;
+    private File                blobsDir;
+    private Writer              sessionLog;
+    private DataOutputStream    blobs;
     private PrettyPrinter       prettyPrinter;
-    private Map<Integer,String> writtenHashes;
+    private Set<String>         writtenBlobs;
+    private Cache<K,String>     nodeIds;
+
+    private BlockingQueue<Entry> queue;
+    private Thread               writer;
+    private volatile boolean     writeFailed;
 
     private boolean inited;
     private long    startTime;
 
+    /**
+     * A queued event: either a plain log line, or an event with the terms it refers to.
+     */
+    private static final class Entry {
+        final long     time;
+        final String   text;
+        final LogEvent event;
+        final K[]      terms;
+
+        Entry(long time, String text, LogEvent event, K[] terms) {
+            this.time  = time;
+            this.text  = text;
+            this.event = event;
+            this.terms = terms;
+        }
+    }
+
+    private static final Entry END = new Entry(0, null, null, null);
+
     public StateLog() {
         this.inited        = false;
         this.loggingOn     = false;
         this.loggingPath   = null;
-        this.blobsDir      = null;
         this.logEvents     = Collections.emptyList();
+        this.blobFiles     = false;
+        this.bufferSize    = 1;
         this.prettyPrinter = null;
-        this.writtenHashes = new HashMap<Integer,String>();
     }
 
     public StateLog(JavaExecutionOptions javaExecutionOptions, FileUtil files, PrettyPrinter prettyPrinter) {
@@ -57,12 +101,10 @@ public class StateLog {
 
         if (javaExecutionOptions.stateLogId != null) this.sessionId = javaExecutionOptions.stateLogId;
 
-        this.blobsDir = new File(loggingPath, this.sessionId + "_blobs/");
-        this.blobsDir.mkdirs();
-
         this.logEvents     = javaExecutionOptions.stateLogEvents;
+        this.blobFiles     = javaExecutionOptions.stateLogBlobFiles;
+        this.bufferSize    = Math.max(javaExecutionOptions.stateLogBufferSize, 1);
         this.prettyPrinter = prettyPrinter;
-        this.writtenHashes = new HashMap<Integer,String>();
     }
 
     public void open(String defaultSessionId) {
@@ -70,15 +112,30 @@ public class StateLog {
         this.inited = true;
         boolean sessionIdNotSet = this.sessionId == null;
         if (sessionIdNotSet) this.sessionId = defaultSessionId;
+        this.loggingPath.mkdirs();
         File logFile = new File(this.loggingPath, this.sessionId + ".log");
-        PrintWriter sessionLog;
         try {
-            this.sessionLog = new PrintWriter(logFile);
+            this.sessionLog = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(logFile),
+                    StandardCharsets.UTF_8));
+            if (this.blobFiles) {
+                this.blobsDir = new File(this.loggingPath, this.sessionId + "_blobs/");
+                this.blobsDir.mkdirs();
+            } else {
+                this.blobs = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(new File(this.loggingPath, this.sessionId + "_blobs.bin"))));
+            }
             if(sessionIdNotSet) System.out.println("StateLog: " + logFile);
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             e.printStackTrace();
+            this.writeFailed = true;
         }
-        this.startTime = System.currentTimeMillis();
+        this.writtenBlobs = new HashSet<>();
+        this.nodeIds      = CacheBuilder.newBuilder().weakKeys().build();
+        this.queue        = new ArrayBlockingQueue<>(this.bufferSize);
+        this.writer       = new Thread(this::writeEntries, "state-log-writer");
+        this.writer.setDaemon(true);
+        this.startTime    = System.currentTimeMillis();
+        this.writer.start();
         this.log(LogEvent.OPEN);
     }
 
@@ -88,62 +145,148 @@ public class StateLog {
 
     public void log(String logItem) {
         if (! this.loggingOn) return;
-        this.sessionLog.println((System.currentTimeMillis() - this.startTime) + " " + logItem);
-        this.sessionLog.flush();
+        enqueue(new Entry(System.currentTimeMillis(), logItem, null, null));
     }
 
     public void log(LogEvent logCode, K... terms) {
         if (! (this.loggingOn && this.logEvents.contains(logCode))) return;
-        ArrayList<String> nodeIds = new ArrayList<String>();
-        for (K term: terms) {
-            nodeIds.add(writeNode(term));
-        }
-        String nodeId = String.join("_", nodeIds);
-        this.log(logCode.toString() + " " + nodeId);
+        enqueue(new Entry(System.currentTimeMillis(), null, logCode, terms));
     }
 
     public void close() {
         if (! this.loggingOn) return;
         this.log(LogEvent.CLOSE);
-        this.sessionLog.close();
+        if (this.writer == null) return;
+        enqueue(END);
+        try {
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (this.sessionLog != null) this.sessionLog.close();
+            if (this.blobs != null) this.blobs.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
-    private static String hash(K in) {
-        MessageDigest m = null;
-        String hashtext = "__";
+    /**
+     * Blocks while the queue is full, but drops the entry once the writer thread is gone, so that logging can never
+     * hang the rewriter.
+     */
+    private void enqueue(Entry entry) {
+        if (this.queue == null) return;
         try {
-            m = MessageDigest.getInstance("MD5");
-            m.reset();
-            m.update(KPrint.serialize(in, OutputModes.KAST));
-            byte[] digest = m.digest();
-            BigInteger bigInt = new BigInteger(1,digest);
-            hashtext = bigInt.toString(16);
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
+            while (!this.queue.offer(entry, 100, TimeUnit.MILLISECONDS)) {
+                if (!this.writer.isAlive()) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Body of the writer thread. Writes queued entries in batches, flushing after each batch, until {@link #END}.
+     * Entries are still drained after a failure, so that producers are not blocked.
+     */
+    private void writeEntries() {
+        List<Entry> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(this.queue.take());
+                this.queue.drainTo(batch);
+                for (Entry entry : batch) {
+                    if (entry == END) {
+                        flush();
+                        return;
+                    }
+                    write(entry);
+                }
+                batch.clear();
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        return hashtext;
     }
 
-    private String writeNode(K contents) {
-        int objectHash = contents.hashCode();
-        if (writtenHashes.containsKey(objectHash)) {
-            return writtenHashes.get(objectHash);
-        } else {
-            String fileCode   = hash(contents);
-            File   outputFile = new File(this.blobsDir, fileCode + "." + OutputModes.JSON.ext());
-            if (! outputFile.exists()) {
-                try {
-                    String out = new String(this.prettyPrinter.prettyPrintBytes(contents), StandardCharsets.UTF_8);
-                    PrintWriter fOut = new PrintWriter(outputFile);
-                    fOut.println(out);
-                    fOut.close();
-                    writtenHashes.put(objectHash,fileCode);
-                } catch (FileNotFoundException e) {
-                    System.err.println("Could not open node output file: " + outputFile.getAbsolutePath());
-                    e.printStackTrace();
+    private void write(Entry entry) {
+        if (this.writeFailed) return;
+        // DISABLE EXCEPTION CHECKSTYLE
+        try {
+            String logItem = entry.text;
+            if (entry.event != null) {
+                ArrayList<String> nodeIds = new ArrayList<String>();
+                for (K term: entry.terms) {
+                    nodeIds.add(writeNode(term));
                 }
+                String nodeId = String.join("_", nodeIds);
+                logItem = entry.event.toString() + " " + nodeId;
+            }
+            this.sessionLog.write((entry.time - this.startTime) + " " + logItem + "\n");
+        } catch (IOException | RuntimeException | Error e) {
+            System.err.println("Could not write state log: " + e);
+            this.writeFailed = true;
+        }
+        // ENABLE EXCEPTION CHECKSTYLE
+    }
+
+    private void flush() {
+        if (this.writeFailed) return;
+        try {
+            this.sessionLog.flush();
+            if (this.blobs != null) this.blobs.flush();
+        } catch (IOException e) {
+            System.err.println("Could not write state log: " + e.getMessage());
+            this.writeFailed = true;
+        }
+    }
+
+    private static String hash(byte[] in) {
+        try {
+            MessageDigest m = MessageDigest.getInstance("SHA-256");
+            byte[] digest = m.digest(in);
+            StringBuilder hashtext = new StringBuilder(2 * digest.length);
+            for (byte b : digest) {
+                hashtext.append(String.format("%02x", b));
             }
+            return hashtext.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Terms already written are recognized by identity first, to avoid serializing them again, then by the hash of
+     * their serialization.
+     */
+    private String writeNode(K contents) throws IOException {
+        String fileCode = this.nodeIds.getIfPresent(contents);
+        if (fileCode != null) {
             return fileCode;
         }
+        fileCode = hash(KPrint.serialize(contents, OutputModes.KAST));
+        if (this.writtenBlobs.add(fileCode)) {
+            byte[] out = this.prettyPrinter.prettyPrintBytes(contents);
+            if (this.blobFiles) {
+                File outputFile = new File(this.blobsDir, fileCode + "." + OutputModes.JSON.ext());
+                if (! outputFile.exists()) {
+                    try (FileOutputStream fOut = new FileOutputStream(outputFile)) {
+                        fOut.write(out);
+                        fOut.write('\n');
+                    } catch (IOException e) {
+                        System.err.println("Could not open node output file: " + outputFile.getAbsolutePath());
+                        e.printStackTrace();
+                    }
+                }
+            } else {
+                this.blobs.writeUTF(fileCode);
+                this.blobs.writeInt(out.length);
+                this.blobs.write(out);
+            }
+        }
+        this.nodeIds.put(contents, fileCode);
+        return fileCode;
     }
 }
@@ -0,0 +1,128 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.kframework.backend.java.z3.Z3Context;
+import org.kframework.backend.java.z3.Z3Exception;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-thread Z3 library contexts for {@code --z3-jni}, the in-process counterpart of {@link Z3ProcessPool}. Each
+ * context evaluates the SMT prelude once, when it is created, and then runs every query between {@code (push)} and
+ * {@code (pop)} in its command interpreter.
+ * <p>
+ * Besides the soft Z3 timeout, a query that runs past a hard deadline is interrupted natively, and reported as
+ * {@code unknown}. A context whose query failed is discarded, since its scopes may be unbalanced.
+ */
+public class Z3ContextCache {
+
+    /**
+     * Minimal extra time given to Z3 on top of the soft timeout before the query is interrupted.
+     */
+    private static final int MIN_HARD_TIMEOUT_GRACE = 1000;
+
+    private static final ThreadLocal<Map<String, Session>> sessions = ThreadLocal.withInitial(HashMap::new);
+
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "z3-jni-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * False if the Z3 library is too old to evaluate SMT-LIB commands.
+     */
+    private static volatile boolean supported = true;
+
+    private Z3ContextCache() {}
+
+    public static boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * @param unsatCore whether to also report the unsat core of unsat queries.
+     * @param rlimit    the Z3 resource limit of the query, or 0 for no limit.
+     * @return the raw Z3 output for the query, or null if the Z3 library does not support command evaluation.
+     * @throws Z3Exception if Z3 reported an error.
+     */
+    public static String check(String prelude, CharSequence query, String checkSat, boolean unsatCore,
+                               int timeout, int rlimit, Z3Profiler profiler) {
+        Map<String, Session> threadSessions = sessions.get();
+        Session session = threadSessions.get(prelude);
+        try {
+            if (session == null) {
+                profiler.newProcessStart();
+                session = new Session(prelude);
+                threadSessions.put(prelude, session);
+            }
+            return session.check(query, checkSat, unsatCore, timeout, rlimit);
+        } catch (UnsatisfiedLinkError e) {
+            supported = false;
+            discard(threadSessions, prelude, session);
+            return null;
+        } catch (Z3Exception e) {
+            profiler.newProcessRestart();
+            discard(threadSessions, prelude, session);
+            throw e;
+        }
+    }
+
+    private static void discard(Map<String, Session> threadSessions, String prelude, Session session) {
+        threadSessions.remove(prelude);
+        if (session != null) {
+            session.context.close();
+        }
+    }
+
+    private static final class Session {
+        private final Z3Context context = new Z3Context();
+        private int currentTimeout = -1;
+        private int currentRlimit = 0;
+
+        Session(String prelude) {
+            eval(prelude);
+        }
+
+        String check(CharSequence query, String checkSat, boolean unsatCore, int timeout, int rlimit) {
+            StringBuilder sb = new StringBuilder();
+            if (timeout != currentTimeout) {
+                sb.append("(set-option :timeout ").append(timeout).append(")\n");
+                currentTimeout = timeout;
+            }
+            if (rlimit != currentRlimit) {
+                sb.append("(set-option :rlimit ").append(rlimit).append(")\n");
+                currentRlimit = rlimit;
+            }
+            sb.append("(push)\n").append(query).append("\n").append(checkSat).append("\n");
+
+            long hardTimeout = timeout + Math.max(timeout, MIN_HARD_TIMEOUT_GRACE);
+            ScheduledFuture<?> interrupt = watchdog.schedule(context::interrupt, hardTimeout, TimeUnit.MILLISECONDS);
+            String output;
+            try {
+                output = eval(sb.toString());
+            } finally {
+                interrupt.cancel(false);
+            }
+            //Z3 reports an error when asked for the core of a query that is not unsat.
+            if (unsatCore && output.equals("unsat")) {
+                output += "\n" + eval(Z3Wrapper.GET_UNSAT_CORE);
+            }
+            eval("(pop)");
+            return output;
+        }
+
+        private String eval(String commands) {
+            String output = context.evalSmtlib2(commands).trim();
+            if (output.contains("(error ")) {
+                throw new Z3Exception(output);
+            }
+            return output;
+        }
+    }
+}
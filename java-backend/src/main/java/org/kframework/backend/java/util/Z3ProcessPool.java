@@ -0,0 +1,240 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.kframework.utils.OS;
+import org.kframework.utils.errorsystem.KEMException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * A pool of resident Z3 processes. Each process loads the SMT prelude once, at startup, and then runs every query
+ * between {@code (push)} and {@code (pop)}, so the cost of starting Z3 is paid once per process instead of once per
+ * query.
+ * <p>
+ * A process that crashes is replaced by a fresh one and the query is retried once. A process that does not answer
+ * within a hard deadline (well above the soft Z3 timeout) is killed and the query is reported as {@code unknown}.
+ * <p>
+ * Pools are shared by all {@link Z3Wrapper} instances with the same prelude and size, e.g. by kserver sessions.
+ */
+public class Z3ProcessPool {
+
+    private static final String END_MARKER = "k-z3-end-of-query";
+    private static final String TIMEOUT_RESULT = "unknown";
+
+    /**
+     * Minimal extra time given to Z3 on top of the soft timeout before the process is killed.
+     */
+    private static final int MIN_HARD_TIMEOUT_GRACE = 1000;
+
+    private static final Map<List<Object>, Z3ProcessPool> pools = new HashMap<>();
+    private static final List<Z3Process> allProcesses = new ArrayList<>();
+
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "z3-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(Z3ProcessPool::destroyAll));
+    }
+
+    private final String prelude;
+    private final int size;
+    private final Supplier<ProcessBuilder> processBuilderSupplier;
+    private final BlockingQueue<Z3Process> idle = new LinkedBlockingQueue<>();
+    private int started;
+
+    private Z3ProcessPool(String prelude, int size, Supplier<ProcessBuilder> processBuilderSupplier) {
+        this.prelude = prelude;
+        this.size = size;
+        this.processBuilderSupplier = processBuilderSupplier;
+    }
+
+    public static synchronized Z3ProcessPool getPool(String prelude, int size,
+                                                     Supplier<ProcessBuilder> processBuilderSupplier) {
+        return pools.computeIfAbsent(Arrays.asList(prelude, size),
+                key -> new Z3ProcessPool(prelude, size, processBuilderSupplier));
+    }
+
+    /**
+     * @return the raw Z3 output for the query, {@code unknown} if Z3 had to be killed, or the empty string if Z3
+     * crashed twice in a row on this query.
+     */
+    public String check(CharSequence query, String checkSat, int timeout, Z3Profiler profiler) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Z3Process process = acquire(profiler);
+            String result;
+            try {
+                result = process.check(query, checkSat, timeout);
+            } catch (IOException e) {
+                if (process.killed) {
+                    profiler.newProcessKill();
+                    replace(process);
+                    return TIMEOUT_RESULT;
+                }
+                profiler.newProcessRestart();
+                replace(process);
+                continue;
+            }
+            if (process.killed || !process.isAlive()) {
+                // the watchdog fired after the answer was read; the answer is valid but the process is gone
+                replace(process);
+            } else {
+                release(process);
+            }
+            return result;
+        }
+        return "";
+    }
+
+    /**
+     * Waits for an idle process, or starts one if the pool is not full. The wait is bounded, so that a slot freed by a
+     * replacement that failed to start is noticed.
+     */
+    private Z3Process acquire(Z3Profiler profiler) {
+        try {
+            Z3Process process = idle.poll();
+            while (process == null) {
+                synchronized (this) {
+                    if (started < size) {
+                        started++;
+                        profiler.newProcessStart();
+                        return start();
+                    }
+                }
+                process = idle.poll(100, TimeUnit.MILLISECONDS);
+            }
+            return process;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw KEMException.criticalError("Interrupted while waiting for a Z3 process", e);
+        }
+    }
+
+    private void release(Z3Process process) {
+        idle.add(process);
+    }
+
+    /**
+     * Replaces a dead process by a fresh one, handed to the next thread waiting for a process, so that threads blocked
+     * in {@link #acquire} are not left waiting for a process that will never be released.
+     */
+    private void replace(Z3Process process) {
+        process.destroy();
+        synchronized (Z3ProcessPool.class) {
+            allProcesses.remove(process);
+        }
+        synchronized (this) {
+            idle.add(start());
+        }
+    }
+
+    private Z3Process start() {
+        ProcessBuilder pb = processBuilderSupplier.get().command(
+                OS.current().getNativeExecutable("z3"),
+                "-in",
+                "-smt2");
+        pb.redirectInput(ProcessBuilder.Redirect.PIPE);
+        pb.redirectOutput(ProcessBuilder.Redirect.PIPE);
+        try {
+            Z3Process process = new Z3Process(pb.start(), prelude);
+            synchronized (Z3ProcessPool.class) {
+                allProcesses.add(process);
+            }
+            return process;
+        } catch (IOException e) {
+            synchronized (this) {
+                started--;
+            }
+            throw KEMException.criticalError("Exception while invoking Z3", e);
+        }
+    }
+
+    private static synchronized void destroyAll() {
+        allProcesses.forEach(Z3Process::destroy);
+        allProcesses.clear();
+    }
+
+    private static final class Z3Process {
+        private final Process process;
+        private final PrintWriter input;
+        private final BufferedReader output;
+        private int currentTimeout = -1;
+        /**
+         * Whether the watchdog killed the process during the last query. Killed processes are never reused, so a
+         * failure of a later query on the same object is always reported as a crash and retried.
+         */
+        private volatile boolean killed;
+
+        Z3Process(Process process, String prelude) {
+            this.process = process;
+            this.input = new PrintWriter(process.getOutputStream());
+            this.output = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            input.format("%s\n", prelude);
+            input.flush();
+        }
+
+        String check(CharSequence query, String checkSat, int timeout) throws IOException {
+            killed = false;
+            if (timeout != currentTimeout) {
+                input.format("(set-option :timeout %d)\n", timeout);
+                currentTimeout = timeout;
+            }
+            input.format("(push)\n%s\n%s\n(pop)\n(echo \"%s\")\n", query, checkSat, END_MARKER);
+            input.flush();
+            if (input.checkError()) {
+                throw new IOException("Z3 process does not accept input");
+            }
+
+            long hardTimeout = timeout + Math.max(timeout, MIN_HARD_TIMEOUT_GRACE);
+            // whichever of the watchdog and the reader gets here first decides whether the process was killed
+            AtomicBoolean done = new AtomicBoolean();
+            ScheduledFuture<?> kill = watchdog.schedule(() -> {
+                if (done.compareAndSet(false, true)) {
+                    killed = true;
+                    process.destroyForcibly();
+                }
+            }, hardTimeout, TimeUnit.MILLISECONDS);
+            try {
+                StringBuilder result = new StringBuilder();
+                String line;
+                while ((line = output.readLine()) != null && !line.equals(END_MARKER)) {
+                    result.append(line).append("\n");
+                }
+                if (line == null) {
+                    throw new IOException("Z3 process terminated");
+                }
+                return result.toString().trim();
+            } finally {
+                done.set(true);
+                kill.cancel(false);
+            }
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        void destroy() {
+            input.close();
+            process.destroyForcibly();
+        }
+    }
+}
@@ -5,6 +5,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * Thread-safe, since queries may be checked concurrently, see {@link Z3Wrapper}.
+ *
  * @author Denis Bogdanas
  * Created on 26-Jul-18.
  */
@@ -15,28 +17,38 @@ public class Z3Profiler {
     private int queryBuildFailureCount;
     private int totalTimeouts;
     private int nonTimeouts;
-    private boolean lastRunTimeout;
+    private int processStarts;
+    private int processRestarts;
+    private int processKills;
     private Map<String, Integer> queryResultCounts = new HashMap<>();
 
     Z3Profiler(String name) {
         sw = new CounterStopwatch(name + " time");
     }
 
-    public void startRun() {
-        sw.start();
+    /**
+     * @return the start time of the run, to be passed to {@link #endRun}.
+     */
+    public long startRun() {
+        return System.nanoTime();
     }
 
-    public void endRun(int timeout) {
-        long durationNano = sw.stopAndGetDuration();
-        lastRunTimeout = (durationNano / 1000000.d) >= timeout;
-        if (lastRunTimeout) {
+    /**
+     * @return true if the run likely ended by timeout.
+     */
+    public synchronized boolean endRun(long startNano, int timeout) {
+        long durationNano = System.nanoTime() - startNano;
+        sw.addRun(durationNano);
+        boolean timedOut = (durationNano / 1000000.d) >= timeout;
+        if (timedOut) {
             totalTimeouts++;
         } else {
             nonTimeouts++;
         }
+        return timedOut;
     }
 
-    public void queryResult(String result) {
+    public synchronized void queryResult(String result) {
         Integer cnt = queryResultCounts.get(result);
         cnt = cnt != null ? cnt : 0;
         queryResultCounts.put(result, cnt + 1);
@@ -45,23 +57,40 @@ public class Z3Profiler {
     /**
      * Not all requests result in actual SMT query. Some might have the results already cached.
      */
-    public void newRequest() {
+    public synchronized void newRequest() {
         requestCount++;
     }
 
-    public void newQueryBuildFailure() {
+    public synchronized void newQueryBuildFailure() {
         queryBuildFailureCount++;
     }
 
-    public void startQuery() {
+    public synchronized void startQuery() {
         queryCount++;
     }
 
-    public boolean isLastRunTimeout() {
-        return lastRunTimeout;
+    /**
+     * A resident Z3 process was started, see {@link Z3ProcessPool}.
+     */
+    public synchronized void newProcessStart() {
+        processStarts++;
     }
 
-    public void print() {
+    /**
+     * A resident Z3 process crashed or was killed and will be replaced.
+     */
+    public synchronized void newProcessRestart() {
+        processRestarts++;
+    }
+
+    /**
+     * A resident Z3 process exceeded the hard timeout and was killed.
+     */
+    public synchronized void newProcessKill() {
+        processKills++;
+    }
+
+    public synchronized void print() {
         if (queryCount == 0) {
             return;
         }
@@ -92,5 +121,14 @@ public class Z3Profiler {
         if (recoveredTimeouts != 0) {
             System.err.format("    recovered timeouts:   %d\n", recoveredTimeouts);
         }
+        if (processStarts != 0) {
+            System.err.format("    z3 processes started: %d\n", processStarts);
+        }
+        if (processRestarts != 0) {
+            System.err.format("    z3 process restarts:  %d\n", processRestarts);
+        }
+        if (processKills != 0) {
+            System.err.format("    z3 processes killed:  %d\n", processKills);
+        }
     }
 }
@@ -0,0 +1,211 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Persistent cache of Z3 query results, shared between runs.
+ * <p>
+ * Entries are keyed by a SHA-256 hash of the SMT prelude, the check-sat command and the alpha-normalized query. The
+ * cache is an append-only text file with one {@code <hash> <result> <timeout> <rlimit>} entry per line, loaded into
+ * memory when the cache is first opened. Results {@code sat} and {@code unsat} are always reused. Result
+ * {@code unknown} is only reused if explicitly allowed, and only for queries with a timeout and a resource limit not
+ * greater than the ones that produced it. A resource limit of 0 means no limit.
+ */
+public class Z3QueryCache {
+
+    public static final String FILE_NAME = "z3-query-cache.txt";
+
+    private static final Map<File, Z3QueryCache> caches = new HashMap<>();
+
+    /**
+     * Matches one SMT-LIB token: quoted symbol, string literal, comment, simple symbol, whitespace run, or any other
+     * single character.
+     */
+    private static final Pattern TOKEN = Pattern.compile(
+            "\\|[^|\\\\]*\\||\"(?:[^\"]|\"\")*\"|;[^\\n]*|[^\\s()|\";]+|\\s+|.", Pattern.DOTALL);
+
+    private final File file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private Writer writer;
+
+    private static final class Entry {
+        final String result;
+        final int timeout;
+        final int rlimit;
+
+        Entry(String result, int timeout, int rlimit) {
+            this.result = result;
+            this.timeout = timeout;
+            this.rlimit = rlimit;
+        }
+
+        boolean isDefinite() {
+            return !"unknown".equals(result);
+        }
+
+        /**
+         * @return true if Z3 had at least as much time and resources for this entry as for the given query.
+         */
+        boolean covers(int timeout, int rlimit) {
+            return this.timeout >= timeout && (this.rlimit == 0 || (rlimit != 0 && this.rlimit >= rlimit));
+        }
+    }
+
+    Z3QueryCache(File file) {
+        this.file = file;
+        load();
+    }
+
+    public static synchronized Z3QueryCache of(File directory) {
+        File file = new File(directory, FILE_NAME).getAbsoluteFile();
+        return caches.computeIfAbsent(file, Z3QueryCache::new);
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                if (parts.length == 3 && !"unknown".equals(parts[1])) {
+                    //Line written before resource limits were recorded; only definite results are still usable.
+                    parts = new String[]{parts[0], parts[1], parts[2], "0"};
+                }
+                if (parts.length != 4) {
+                    //Truncated line, e.g. from an interrupted run.
+                    continue;
+                }
+                try {
+                    merge(parts[0], new Entry(parts[1], Integer.parseInt(parts[2]), Integer.parseInt(parts[3])));
+                } catch (NumberFormatException e) {
+                    //Corrupt line, ignore it.
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read Z3 query cache: " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return true if the new entry is more informative than the existing one.
+     */
+    private boolean merge(String key, Entry entry) {
+        Entry old = entries.get(key);
+        if (old == null || (!old.isDefinite() && (entry.isDefinite()
+                || (entry.covers(old.timeout, old.rlimit) && !old.covers(entry.timeout, entry.rlimit))))) {
+            entries.put(key, entry);
+            return true;
+        }
+        return false;
+    }
+
+    public String key(String prelude, String checkSat, CharSequence query) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(prelude.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(checkSat.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(normalize(query).getBytes(StandardCharsets.UTF_8));
+            return String.format("%064x", new BigInteger(1, digest.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * @return the cached result, or null if there is none usable for the given timeout and resource limit.
+     */
+    public String get(String key, int timeout, int rlimit, boolean reuseUnknown) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isDefinite() || (reuseUnknown && entry.covers(timeout, rlimit))) {
+            return entry.result;
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the result was stored.
+     */
+    public synchronized boolean put(String key, String result, int timeout, int rlimit) {
+        Entry entry = new Entry(result, timeout, rlimit);
+        if (!merge(key, entry)) {
+            return false;
+        }
+        try {
+            if (writer == null) {
+                file.getParentFile().mkdirs();
+                writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+            }
+            writer.write(key + " " + result + " " + timeout + " " + rlimit + "\n");
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Could not write Z3 query cache: " + file.getAbsolutePath());
+        }
+        return true;
+    }
+
+    /**
+     * Renames variables in the query to {@code |#v0|}, {@code |#v1|}, ... in the order of their first occurrence,
+     * and collapses whitespace, so that queries differing only in variable names have the same normal form.
+     * <p>
+     * Variables are the symbols that occur at least once in quoted form {@code |...|}. KILtoSMTLib quotes all
+     * variables in declarations, but not always at their use sites.
+     */
+    public static String normalize(CharSequence query) {
+        Set<String> variableNames = new HashSet<>();
+        Matcher quoted = TOKEN.matcher(query);
+        while (quoted.find()) {
+            String text = quoted.group();
+            if (text.charAt(0) == '|') {
+                variableNames.add(text.substring(1, text.length() - 1));
+            }
+        }
+
+        Map<String, String> renaming = new HashMap<>();
+        StringBuilder sb = new StringBuilder(query.length());
+        Matcher token = TOKEN.matcher(query);
+        while (token.find()) {
+            String text = token.group();
+            char first = text.charAt(0);
+            if (Character.isWhitespace(first) || first == ';') {
+                if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
+                    sb.append(' ');
+                }
+                continue;
+            }
+            String name = first == '|' ? text.substring(1, text.length() - 1) : text;
+            if (variableNames.contains(name)) {
+                sb.append(renaming.computeIfAbsent(name, n -> "|#v" + renaming.size() + "|"));
+            } else {
+                sb.append(text);
+            }
+        }
+        return sb.toString().trim();
+    }
+}
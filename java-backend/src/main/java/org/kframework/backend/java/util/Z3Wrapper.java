@@ -20,17 +20,29 @@ import org.kframework.utils.options.SMTOptions;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 import static org.kframework.kore.KORE.*;
 
 /**
+ * Checks SMT queries with Z3. Up to {@link SMTOptions#z3Workers} queries are checked concurrently, each in its own
+ * solver instance: a resident JNI context scope from {@link Z3ContextCache}, a fresh process, or a resident process
+ * scope from {@link Z3ProcessPool}.
+ * Queries never share solver state, so results do not depend on how queries are scheduled among workers. Callers
+ * block while all workers are busy.
+ *
  * @author Traian
  */
 public class Z3Wrapper {
 
     public static final Set<String> Z3_QUERY_RESULTS = ImmutableSet.of("unknown", "sat", "unsat");
 
+    public static final String GET_UNSAT_CORE = "(get-unsat-core)";
+
     public final String SMT_PRELUDE, CHECK_SAT;
     private final SMTOptions options;
     private final JavaExecutionOptions javaExecutionOptions;
@@ -38,6 +50,8 @@ public class Z3Wrapper {
     private final FileUtil files;
     private final StateLog stateLog;
     private final GlobalContext global;
+    private final Semaphore workers;
+    private final Z3QueryCache queryCache;
 
     public Z3Wrapper(
             SMTOptions options,
@@ -51,34 +65,165 @@ public class Z3Wrapper {
         this.files = files;
         this.stateLog = stateLog;
         this.global = globalContext;
+        this.workers = new Semaphore(Math.max(options.z3Workers, 1), true);
 
         String defaultPrelude = ""
                 + "(set-option :auto-config false)\n"
                 + "(set-option :smt.mbqi false)\n";
 
-        SMT_PRELUDE = options.smtPrelude == null ? defaultPrelude : files.loadFromWorkingDirectory(options.smtPrelude);
+        String prelude = options.smtPrelude == null ? defaultPrelude
+                                                    : files.loadFromWorkingDirectory(options.smtPrelude);
+        //Must be set before any declaration in the prelude.
+        SMT_PRELUDE = javaExecutionOptions.cacheImplicationCores
+                      ? "(set-option :produce-unsat-cores true)\n" + prelude
+                      : prelude;
         CHECK_SAT = options.z3Tactic == null ? "(check-sat)" : "(check-sat-using " + options.z3Tactic + ")";
+
+        if (options.z3CacheDir != null) {
+            queryCache = Z3QueryCache.of(files.resolveWorkingDirectory(options.z3CacheDir));
+        } else if (options.z3Cache) {
+            queryCache = Z3QueryCache.of(files.resolveKompiled("."));
+        } else {
+            queryCache = null;
+        }
     }
 
-    public synchronized boolean isUnsat(CharSequence query, int timeout, Z3Profiler timer) {
+    public boolean isUnsat(CharSequence query, int timeout, Z3Profiler timer) {
         stateLog.log(StateLog.LogEvent.Z3QUERY,
                 KToken(SMT_PRELUDE + "\n" + query + "\n" + CHECK_SAT + "\n", Sorts.Z3Query()));
-        if (options.z3JNI) {
-            return checkQueryWithLibrary(query, timeout);
-        } else {
-            return checkQueryWithExternalProcess(query, timeout, timer);
+        String cacheKey = null;
+        if (queryCache != null) {
+            cacheKey = queryCache.key(SMT_PRELUDE, CHECK_SAT, query);
+            String cachedResult = queryCache.get(cacheKey, timeout, rlimit(), options.z3CacheUnknown);
+            if (cachedResult != null) {
+                global.profiler.z3QueryCacheStats.hit();
+                stateLog.log(StateLog.LogEvent.Z3RESULT, KToken(cachedResult, Sorts.Z3Result()));
+                if (javaExecutionOptions.debugZ3) {
+                    global.log().format("\nZ3 query result (disk cache): %s\n", cachedResult);
+                }
+                return "unsat".equals(cachedResult);
+            }
+            global.profiler.z3QueryCacheStats.miss();
+        }
+
+        String result = check(query, false, timeout, timer);
+        if (cacheKey != null && result != null && queryCache.put(cacheKey, result, timeout, rlimit())) {
+            global.profiler.z3QueryCacheStats.store();
+        }
+        return "unsat".equals(result);
+    }
+
+    /**
+     * Same as {@link #isUnsat}, but also asks Z3 for the unsat core of the query, for {@code
+     * --cache-implication-cores}. The query should name the assertions that may be part of the core. These queries
+     * are not stored in the Z3 query cache.
+     *
+     * @return the names in the unsat core, or null if the query is not unsat or no core was reported.
+     */
+    public List<String> unsatCore(CharSequence query, int timeout, Z3Profiler timer) {
+        stateLog.log(StateLog.LogEvent.Z3QUERY,
+                KToken(SMT_PRELUDE + "\n" + query + "\n" + CHECK_SAT + "\n" + GET_UNSAT_CORE + "\n",
+                        Sorts.Z3Query()));
+        String output = check(query, true, timeout, timer);
+        if (output == null || !"unsat".equals(status(output))) {
+            return null;
+        }
+        for (String line : output.split("\n")) {
+            line = line.trim();
+            if (line.startsWith("(") && !line.startsWith("(error")) {
+                return Arrays.stream(line.substring(1, line.length() - 1).trim().split("\\s+"))
+                        .filter(name -> !name.isEmpty())
+                        .map(name -> name.startsWith("|") ? name.substring(1, name.length() - 1) : name)
+                        .collect(Collectors.toList());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the raw Z3 output for the query, starting with its result, or null if the query could not be checked.
+     */
+    private String check(CharSequence query, boolean unsatCore, int timeout, Z3Profiler timer) {
+        try {
+            workers.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw KEMException.criticalError("Interrupted while waiting for a Z3 worker", e);
+        }
+        try {
+            if (options.z3JNI) {
+                return checkQueryWithLibrary(query, unsatCore, timeout, timer);
+            }
+            //Z3 reports an error instead of a core for queries that are not unsat, and goes on.
+            String checkSat = unsatCore ? CHECK_SAT + "\n" + GET_UNSAT_CORE : CHECK_SAT;
+            if (options.z3PoolSize > 0) {
+                return checkQueryWithProcessPool(query, checkSat, timeout, timer);
+            } else {
+                return checkQueryWithExternalProcess(query, checkSat, timeout, timer);
+            }
+        } finally {
+            workers.release();
+        }
+    }
+
+    /**
+     * @return the resource limit Z3 runs queries with, or 0 for no limit. Only the Z3 library applies it.
+     */
+    private int rlimit() {
+        return options.z3JNI ? options.z3RLimit : 0;
+    }
+
+    private static String status(String output) {
+        int end = output.indexOf('\n');
+        return end < 0 ? output : output.substring(0, end).trim();
+    }
+
+    /**
+     * Checks the query in a context from {@link Z3ContextCache}, or in a fresh context if the Z3 library cannot
+     * evaluate SMT-LIB commands.
+     *
+     * @return the query result, or null if the query could not be checked.
+     */
+    private String checkQueryWithLibrary(CharSequence query, boolean unsatCore, int timeout, Z3Profiler profiler) {
+        if (Z3ContextCache.isSupported()) {
+            String result;
+            profiler.startQuery();
+            long startNano = profiler.startRun();
+            try {
+                result = Z3ContextCache.check(SMT_PRELUDE, query, CHECK_SAT, unsatCore, timeout, options.z3RLimit,
+                        profiler);
+            } catch (Z3Exception e) {
+                kem.registerCriticalWarning(ExceptionType.PROOF_LINT,
+                        "failed to translate smtlib expression:\n" + SMT_PRELUDE + query, e);
+                return null;
+            } catch (UnsatisfiedLinkError e) {
+                System.err.println(System.getProperty("java.library.path"));
+                throw e;
+            }
+            if (result != null) {
+                boolean timedOut = profiler.endRun(startNano, timeout);
+                if (javaExecutionOptions.debugZ3 && timedOut) {
+                    global.log().format("\nZ3 likely timeout\n");
+                }
+                return processResult(query, result, profiler);
+            }
         }
+        return checkQueryWithFreshContext(query, timeout);
     }
 
-    private boolean checkQueryWithLibrary(CharSequence query, int timeout) {
-        boolean result = false;
+    private String checkQueryWithFreshContext(CharSequence query, int timeout) {
+        String result = null;
         try (Z3Context context = new Z3Context()) {
             Z3Solver solver = new Z3Solver(context);
             Z3Params params = new Z3Params(context);
             params.add("timeout", timeout);
+            if (options.z3RLimit > 0) {
+                params.add("rlimit", options.z3RLimit);
+            }
             solver.setParams(params);
             solver._assert(context.parseSmtlib2(SMT_PRELUDE + query));
-            result = solver.check() == Z3Status.UNSAT;
+            Z3Status status = solver.check();
+            result = status == Z3Status.UNSAT ? "unsat" : status == Z3Status.SAT ? "sat" : "unknown";
         } catch (Z3Exception e) {
             kem.registerCriticalWarning(ExceptionType.PROOF_LINT,
                     "failed to translate smtlib expression:\n" + SMT_PRELUDE + query, e);
@@ -90,10 +235,31 @@ public class Z3Wrapper {
     }
 
     /**
-     * @return true if query result is unsat, false otherwise.
+     * Same as {@link #checkQueryWithExternalProcess}, but the query is sent to a resident Z3 process that already
+     * loaded the prelude.
      */
-    private boolean checkQueryWithExternalProcess(CharSequence query, int timeout, Z3Profiler profiler) {
+    private String checkQueryWithProcessPool(CharSequence query, String checkSat, int timeout, Z3Profiler profiler) {
+        Z3ProcessPool pool = Z3ProcessPool.getPool(SMT_PRELUDE, options.z3PoolSize, files::getProcessBuilder);
+        profiler.startQuery();
+        long startNano = profiler.startRun();
+        String result = pool.check(query, checkSat, timeout, profiler);
+        boolean timedOut = profiler.endRun(startNano, timeout);
+        if (result.isEmpty()) {
+            result = "Z3 error: ended with no output";
+        }
+        if (javaExecutionOptions.debugZ3 && timedOut) {
+            global.log().format("\nZ3 likely timeout\n");
+        }
+        return processResult(query, result, profiler);
+    }
+
+    /**
+     * @return the raw Z3 output, starting with one of {@link #Z3_QUERY_RESULTS}.
+     */
+    private String checkQueryWithExternalProcess(CharSequence query, String checkSat, int timeout,
+                                                 Z3Profiler profiler) {
         String result;
+        boolean timedOut = false;
         profiler.startQuery();
         try {
             ProcessBuilder pb = files.getProcessBuilder().command(
@@ -103,16 +269,16 @@ public class Z3Wrapper {
                     "-t:" + timeout);
             pb.redirectInput(ProcessBuilder.Redirect.PIPE);
             pb.redirectOutput(ProcessBuilder.Redirect.PIPE);
-            profiler.startRun();
+            long startNano = profiler.startRun();
             Process z3Process = pb.start();
             PrintWriter input = new PrintWriter(z3Process.getOutputStream());
-            input.format("%s%s%s\n", SMT_PRELUDE, query, CHECK_SAT);
+            input.format("%s%s%s\n", SMT_PRELUDE, query, checkSat);
             input.close();
             // When the process dies, that input stream does not go away automatically.
             // https://stackoverflow.com/a/7100172/4182868
             result = IOUtils.toString(z3Process.getInputStream()).trim();
             z3Process.destroy();
-            profiler.endRun(timeout);
+            timedOut = profiler.endRun(startNano, timeout);
 
             if (result.isEmpty()) {
                 result = "Z3 error: ended with no output";
@@ -120,19 +286,27 @@ public class Z3Wrapper {
         } catch (IOException e) {
             throw KEMException.criticalError("Exception while invoking Z3", e);
         } finally {
-            if (javaExecutionOptions.debugZ3 && profiler.isLastRunTimeout()) {
+            if (javaExecutionOptions.debugZ3 && timedOut) {
                 //In case of timeout, result is "unknown", so evaluation can proceed.
                 global.log().format("\nZ3 likely timeout\n");
             }
         }
+        return processResult(query, result, profiler);
+    }
+
+    /**
+     * Checks the first line of the output, which is the query result. Further lines are the unsat core, if requested.
+     */
+    private String processResult(CharSequence query, String output, Z3Profiler profiler) {
+        String result = status(output);
         stateLog.log(StateLog.LogEvent.Z3RESULT, KToken(result, Sorts.Z3Result()));
         if (!Z3_QUERY_RESULTS.contains(result)) {
-            throw KEMException.criticalError("Z3 crashed on input query:\n" + query + "\nresult:\n" + result);
+            throw KEMException.criticalError("Z3 crashed on input query:\n" + query + "\nresult:\n" + output);
         }
         if (javaExecutionOptions.debugZ3) {
             global.log().format("\nZ3 query result: %s\n", result);
         }
         profiler.queryResult(result);
-        return "unsat".equals(result);
+        return output;
     }
 }
@@ -9,8 +9,10 @@ public class Z3AST {
     Z3AST(Pointer ast, Z3Context context) {
         this.ast = ast;
         this.context = context;
-        LibZ3.INSTANCE.Z3_inc_ref(context.context, ast);
-        context.checkError();
+        synchronized (context) {
+            LibZ3.INSTANCE.Z3_inc_ref(context.context, ast);
+            context.checkError();
+        }
     }
 
     @Override
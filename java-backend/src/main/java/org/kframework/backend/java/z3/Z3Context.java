@@ -11,6 +11,11 @@ public class Z3Context implements AutoCloseable {
 
     volatile boolean closed = false;
 
+    /**
+     * Guards {@link #interrupt} against {@link #close}, without waiting for the command running in this context.
+     */
+    private final Object interruptLock = new Object();
+
     private OptionalInt errno = OptionalInt.empty();
 
     public Z3Context() {
@@ -27,18 +32,43 @@ public class Z3Context implements AutoCloseable {
         close();
     }
 
-    public Z3AST parseSmtlib2(String query) {
+    public synchronized Z3AST parseSmtlib2(String query) {
         Pointer ast = LibZ3.INSTANCE.Z3_parse_smtlib2_string(context, query, 0, Pointer.NULL, Pointer.NULL, 0, Pointer.NULL, Pointer.NULL);
         checkError();
         return new Z3AST(ast, this);
     }
 
+    /**
+     * Evaluates SMT-LIB commands in the command interpreter of this context, which keeps its state between calls.
+     *
+     * @return the output of the commands.
+     */
+    public synchronized String evalSmtlib2(String commands) {
+        String output = LibZ3.INSTANCE.Z3_eval_smtlib2_string(context, commands);
+        checkError();
+        return output;
+    }
+
+    /**
+     * Stops the command running in this context, if any. May be called from any thread, and does not wait for the
+     * monitor of this context, which is held by the running command.
+     */
+    public void interrupt() {
+        synchronized (interruptLock) {
+            if (!closed) {
+                LibZ3.INSTANCE.Z3_interrupt(context);
+            }
+        }
+    }
+
     @Override
     public synchronized void close() {
-        if (!closed) {
-            closed = true;
-            LibZ3.INSTANCE.Z3_del_context(context);
-            LibZ3.INSTANCE.Z3_del_config(config);
+        synchronized (interruptLock) {
+            if (!closed) {
+                closed = true;
+                LibZ3.INSTANCE.Z3_del_context(context);
+                LibZ3.INSTANCE.Z3_del_config(config);
+            }
         }
     }
 
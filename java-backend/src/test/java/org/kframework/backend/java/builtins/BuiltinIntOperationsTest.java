@@ -5,6 +5,8 @@ import org.junit.Test;
 import org.kframework.backend.java.kil.TermContext;
 import org.mockito.Mock;
 
+import java.math.BigInteger;
+
 import static org.junit.Assert.*;
 
 public class BuiltinIntOperationsTest {
@@ -29,6 +31,34 @@ public class BuiltinIntOperationsTest {
         testediv(-123, -1233, 1, 1110);
     }
 
+    @Test
+    public void testLongOverflow() {
+        BigInteger max = BigInteger.valueOf(Long.MAX_VALUE);
+        BigInteger min = BigInteger.valueOf(Long.MIN_VALUE);
+        assertEquals(IntToken.of(max.add(BigInteger.ONE)),
+                BuiltinIntOperations.add(IntToken.of(Long.MAX_VALUE), IntToken.of(1), context));
+        assertEquals(IntToken.of(min.subtract(BigInteger.ONE)),
+                BuiltinIntOperations.sub(IntToken.of(Long.MIN_VALUE), IntToken.of(1), context));
+        assertEquals(IntToken.of(max.multiply(max)),
+                BuiltinIntOperations.mul(IntToken.of(Long.MAX_VALUE), IntToken.of(Long.MAX_VALUE), context));
+        assertEquals(IntToken.of(min.negate()),
+                BuiltinIntOperations.div(IntToken.of(Long.MIN_VALUE), IntToken.of(-1), context));
+        assertEquals(IntToken.of(Long.MAX_VALUE),
+                BuiltinIntOperations.sub(IntToken.of(max.add(BigInteger.ONE)), IntToken.of(1), context));
+        assertEquals(BoolToken.TRUE,
+                BuiltinIntOperations.lt(IntToken.of(Long.MAX_VALUE), IntToken.of(max.add(BigInteger.ONE)), context));
+    }
+
+    @Test
+    public void testEqualityAcrossRepresentations() {
+        IntToken fromLong = IntToken.of(1L << 40);
+        IntToken fromBigInteger = IntToken.of(BigInteger.ONE.shiftLeft(40));
+        assertEquals(fromLong, fromBigInteger);
+        assertEquals(fromLong.hashCode(), fromBigInteger.hashCode());
+        assertEquals(fromLong.bigIntegerValue(), fromBigInteger.bigIntegerValue());
+        assertSame(IntToken.of(7), IntToken.of("7"));
+    }
+
     // a = b*q + r, 0 <= r < |b| - Euclidean division where the remainder is always positive
     private void testediv(long a, long b, long q, long r) {
         assert(0 <= r && r < Math.abs(b));
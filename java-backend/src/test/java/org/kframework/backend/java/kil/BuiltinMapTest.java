@@ -7,6 +7,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.kframework.backend.java.builtins.BuiltinMapOperations;
 import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.utils.errorsystem.KEMException;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -91,4 +92,84 @@ public class BuiltinMapTest {
         Assert.assertEquals(null, resultMap);
     }
 
+    @Test
+    public void testLongKeys() throws Exception {
+        BuiltinMap.Builder builder = BuiltinMap.builder(termContext.global());
+        builder.put(IntToken.of(-1), IntToken.of(0));
+        builder.put(IntToken.of(Long.MIN_VALUE), IntToken.of(1));
+        builder.put(IntToken.of(1L << 40), IntToken.of(2));
+        builder.put(IntToken.of((1L << 40) + 1), IntToken.of(3));
+        builder.put(IntToken.of(1L << 40), IntToken.of(4));
+        Assert.assertEquals(IntToken.of(0), builder.remove(IntToken.of(-1)));
+        Assert.assertEquals(null, builder.remove(IntToken.of(-1)));
+        Assert.assertEquals(null, builder.remove(new Variable("X", Sort.INT)));
+        BuiltinMap builtinMap = (BuiltinMap) builder.build();
+
+        Assert.assertEquals(3, builtinMap.concreteSize());
+        Assert.assertTrue(builtinMap.hasOnlyGroundKeys());
+        Assert.assertEquals(IntToken.of(1), builtinMap.get(IntToken.of(Long.MIN_VALUE)));
+        Assert.assertEquals(IntToken.of(4), builtinMap.get(IntToken.of(1L << 40)));
+        Assert.assertEquals(IntToken.of(3), builtinMap.get(IntToken.of((1L << 40) + 1)));
+        Assert.assertFalse(builtinMap.containsKey(IntToken.of(-1)));
+        Assert.assertFalse(builtinMap.containsKey(IntToken.of(1L << 32)));
+        Assert.assertEquals(3, builtinMap.getEntries().size());
+        Assert.assertEquals(IntToken.of(4), builtinMap.getEntries().get(IntToken.of(1L << 40)));
+    }
+
+    @Test
+    public void testSymbolicKey() throws Exception {
+        Variable x = new Variable("X", Sort.INT);
+        BuiltinMap.Builder builder = BuiltinMap.builder(termContext.global());
+        builder.put(IntToken.of(0), IntToken.of(0));
+        builder.put(x, IntToken.of(1));
+        builder.put(IntToken.of(2), IntToken.of(2));
+        BuiltinMap builtinMap = (BuiltinMap) builder.build();
+
+        Assert.assertEquals(3, builtinMap.concreteSize());
+        Assert.assertFalse(builtinMap.hasOnlyGroundKeys());
+        Assert.assertEquals(IntToken.of(0), builtinMap.get(IntToken.of(0)));
+        Assert.assertEquals(IntToken.of(1), builtinMap.get(x));
+        Assert.assertEquals(IntToken.of(2), builtinMap.get(IntToken.of(2)));
+
+        builder = BuiltinMap.builder(termContext.global());
+        builder.put(IntToken.of(3), IntToken.of(3));
+        builder.concatenate(builtinMap);
+        builtinMap = (BuiltinMap) builder.build();
+        Assert.assertEquals(4, builtinMap.concreteSize());
+        Assert.assertEquals(IntToken.of(1), builtinMap.get(x));
+        Assert.assertEquals(IntToken.of(3), builtinMap.get(IntToken.of(3)));
+    }
+
+    @Test
+    public void testRepresentationsAreEqual() throws Exception {
+        Variable x = new Variable("X", Sort.INT);
+        BuiltinMap.Builder builder = BuiltinMap.builder(termContext.global());
+        builder.put(IntToken.of(0), IntToken.of(0));
+        builder.put(IntToken.of(1L << 40), IntToken.of(1));
+        BuiltinMap longMap = (BuiltinMap) builder.build();
+
+        builder = BuiltinMap.builder(termContext.global());
+        builder.put(x, IntToken.of(2));
+        builder.put(IntToken.of(1L << 40), IntToken.of(1));
+        builder.put(IntToken.of(0), IntToken.of(0));
+        builder.remove(x);
+        BuiltinMap genericMap = (BuiltinMap) builder.build();
+
+        Assert.assertEquals(longMap, genericMap);
+        Assert.assertEquals(genericMap, longMap);
+        Assert.assertEquals(longMap.hashCode(), genericMap.hashCode());
+        Assert.assertEquals(longMap.getEntries(), genericMap.getEntries());
+    }
+
+    @Test(expected = KEMException.class)
+    public void testClashingLongKeys() throws Exception {
+        BuiltinMap.Builder builder = BuiltinMap.builder(termContext.global());
+        builder.put(IntToken.of(0), IntToken.of(0));
+        Term map = builder.build();
+
+        builder = BuiltinMap.builder(termContext.global());
+        builder.put(IntToken.of(0), IntToken.of(1));
+        builder.concatenate(map);
+    }
+
 }
@@ -0,0 +1,152 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kframework.attributes.Att;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.utils.BitSet;
+import org.kframework.kore.KORE;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RuleIndexTest {
+
+    @Mock
+    GlobalContext globalContext;
+    @Mock
+    Definition definition;
+
+    private static final Map<String, Att> ATTRIBUTES = ImmutableMap.of(
+            "<RuleIndexTestTop>", Att.empty().add(Att.CELL()),
+            "<RuleIndexTestK>", Att.empty().add(Att.CELL()),
+            "<RuleIndexTestEnv>", Att.empty().add(Att.CELL()),
+            "<RuleIndexTestThread>", Att.empty().add(Att.CELL()).add("multiplicity", "*"),
+            "ruleIndexTestF", Att.empty().add(Att.FUNCTION()));
+
+    private final Variable k = new Variable("K", Sort.KSEQUENCE);
+
+    @Before
+    public void setUp() {
+        when(definition.kLabelAttributesOf(Matchers.any())).thenAnswer(invocation ->
+                ATTRIBUTES.getOrDefault(((org.kframework.kore.KLabel) invocation.getArgument(0)).name(), Att.empty()));
+    }
+
+    private KItem apply(String label, Term... children) {
+        return new KItem(KLabelConstant.of(KORE.KLabel(label), definition),
+                KCollection.upKind(KList.concatenate(children), Kind.KLIST), globalContext, Sort.KITEM, true);
+    }
+
+    private KItem top(Term... cells) {
+        return apply("<RuleIndexTestTop>", cells);
+    }
+
+    private KItem kCell(Term... contents) {
+        KSequence.Builder builder = KSequence.builder();
+        for (Term content : contents) {
+            builder.concatenate(content);
+        }
+        return apply("<RuleIndexTestK>", builder.build());
+    }
+
+    private KItem envCell(Term content) {
+        return apply("<RuleIndexTestEnv>", content);
+    }
+
+    private KItem threadCell(Term... cells) {
+        return apply("<RuleIndexTestThread>", cells);
+    }
+
+    private KItem a() {
+        return apply("ruleIndexTestA");
+    }
+
+    private KItem b() {
+        return apply("ruleIndexTestB");
+    }
+
+    private KItem f() {
+        return apply("ruleIndexTestF");
+    }
+
+    private static Rule rule(Term leftHandSide) {
+        Rule rule = mock(Rule.class);
+        when(rule.leftHandSide()).thenReturn(leftHandSide);
+        return rule;
+    }
+
+    private static Set<Integer> indices(BitSet bitSet) {
+        return bitSet.stream().boxed().collect(Collectors.toSet());
+    }
+
+    private RuleIndex index(Term... leftHandSides) {
+        Map<Integer, Rule> ruleTable = new HashMap<>();
+        for (int i = 0; i < leftHandSides.length; i++) {
+            ruleTable.put(i, rule(leftHandSides[i]));
+        }
+        return new RuleIndex(definition, ruleTable);
+    }
+
+    @Test
+    public void testCandidates() {
+        RuleIndex index = index(
+                top(kCell(a(), k), threadCell(kCell(b()))),
+                top(kCell(b(), k)),
+                top(kCell(k)),
+                top(kCell(f(), k)),
+                top(kCell()),
+                top(kCell(IntToken.of(1))),
+                top(kCell(a()), envCell(b())));
+        assertEquals(7, index.ruleCount());
+
+        assertEquals(Sets.newHashSet(0, 2, 3), indices(index.candidates(top(kCell(a(), b()), envCell(a())))));
+        assertEquals(Sets.newHashSet(0, 2, 3, 6), indices(index.candidates(top(kCell(a()), envCell(b())))));
+        assertEquals(Sets.newHashSet(1, 2, 3), indices(index.candidates(top(kCell(b()), envCell(b())))));
+        assertEquals(Sets.newHashSet(2, 3, 4), indices(index.candidates(top(kCell()))));
+        assertEquals(Sets.newHashSet(2, 3, 5), indices(index.candidates(top(kCell(IntToken.of(1))))));
+        assertEquals(Sets.newHashSet(2, 3), indices(index.candidates(top(kCell(IntToken.of(2))))));
+    }
+
+    @Test
+    public void testUnknownHeads() {
+        RuleIndex index = index(
+                top(kCell(a(), k)),
+                top(kCell(b(), k)));
+        Set<Integer> allRules = Sets.newHashSet(0, 1);
+        assertEquals(allRules, indices(index.candidates(top(kCell(k)))));
+        assertEquals(allRules, indices(index.candidates(top(kCell(f(), a())))));
+        assertEquals(allRules, indices(index.candidates(top(envCell(b())))));
+        assertEquals(allRules, indices(index.candidates(IntToken.of(1))));
+    }
+
+    @Test
+    public void testMultiplicityStar() {
+        // cells that may occur more than once are not indexed
+        RuleIndex index = index(
+                top(threadCell(kCell(a()))),
+                top(threadCell(kCell(b()))));
+        assertEquals(Sets.newHashSet(0, 1), indices(index.candidates(top(threadCell(kCell(a()))))));
+    }
+
+    @Test
+    public void testEmptyRuleTable() {
+        RuleIndex index = new RuleIndex(definition, Collections.emptyMap());
+        assertEquals(0, index.ruleCount());
+        assertTrue(index.candidates(top(kCell(a()))).isEmpty());
+    }
+}
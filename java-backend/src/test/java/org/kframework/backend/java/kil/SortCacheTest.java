@@ -0,0 +1,121 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kframework.attributes.Att;
+import org.kframework.kore.KORE;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SortCacheTest {
+
+    @Mock
+    Definition definition;
+
+    private KLabelConstant kLabel;
+
+    @Before
+    public void setUp() {
+        when(definition.kLabelAttributesOf(Matchers.any())).thenReturn(Att.empty());
+        kLabel = KLabelConstant.of(KORE.KLabel("SortCacheTest"), definition);
+    }
+
+    private static Sort sort(int i) {
+        return Sort.of(KORE.Sort("SortCacheTest" + i));
+    }
+
+    private static Sort[] sorts(Sort... sorts) {
+        return sorts;
+    }
+
+    private static boolean[] exact(boolean... exact) {
+        return exact;
+    }
+
+    private static KItem.CacheTableValue value(Sort sort) {
+        return new KItem.CacheTableValue(sort, true, Collections.singleton(sort));
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        SortCache cache = new SortCache(0);
+        KItem.CacheTableValue value = value(sort(0));
+        cache.put(kLabel, sorts(sort(1), sort(2)), exact(true, false), value);
+
+        assertSame(value, cache.get(kLabel, sorts(sort(1), sort(2)), exact(true, false)));
+        assertNull(cache.get(kLabel, sorts(sort(2), sort(1)), exact(true, false)));
+        assertNull(cache.get(kLabel, sorts(sort(1), sort(2)), exact(true, true)));
+        assertNull(cache.get(kLabel, sorts(sort(1)), exact(true)));
+        assertEquals(1, cache.size());
+
+        cache.put(kLabel, sorts(sort(1), sort(2)), exact(true, false), value(sort(3)));
+        assertSame(value, cache.get(kLabel, sorts(sort(1), sort(2)), exact(true, false)));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testCollisions() {
+        SortCache cache = new SortCache(0, 8, 8);
+        Sort[] first = sorts(sort(0));
+        int firstSlot = SortCache.hash(kLabel, first, exact(false)) & 7;
+        Sort[] second = null;
+        for (int i = 1; second == null; i++) {
+            if ((SortCache.hash(kLabel, sorts(sort(i)), exact(false)) & 7) == firstSlot) {
+                second = sorts(sort(i));
+            }
+        }
+
+        KItem.CacheTableValue firstValue = value(sort(0));
+        KItem.CacheTableValue secondValue = value(second[0]);
+        cache.put(kLabel, first, exact(false), firstValue);
+        assertNull(cache.get(kLabel, second, exact(false)));
+        cache.put(kLabel, second, exact(false), secondValue);
+        assertSame(firstValue, cache.get(kLabel, first, exact(false)));
+        assertSame(secondValue, cache.get(kLabel, second, exact(false)));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testResize() {
+        SortCache cache = new SortCache(0, 8, 16);
+        for (int i = 0; i < 10; i++) {
+            cache.put(kLabel, sorts(sort(i)), exact(true), value(sort(i)));
+        }
+        assertEquals(16, cache.capacity());
+        assertEquals(10, cache.size());
+        for (int i = 0; i < 10; i++) {
+            assertSame(sort(i), cache.get(kLabel, sorts(sort(i)), exact(true)).sort);
+        }
+    }
+
+    @Test
+    public void testFullTable() {
+        SortCache cache = new SortCache(0, 8, 8);
+        for (int i = 0; i < 8; i++) {
+            cache.put(kLabel, sorts(sort(i)), exact(true), value(sort(i)));
+        }
+        assertEquals(8, cache.capacity());
+        assertEquals(6, cache.size());
+        for (int i = 0; i < 6; i++) {
+            assertSame(sort(i), cache.get(kLabel, sorts(sort(i)), exact(true)).sort);
+        }
+        assertNull(cache.get(kLabel, sorts(sort(6)), exact(true)));
+        assertNull(cache.get(kLabel, sorts(sort(7)), exact(true)));
+    }
+
+    @Test
+    public void testPresized() {
+        assertEquals(SortCache.MIN_CAPACITY, new SortCache(0).capacity());
+        assertEquals(SortCache.MIN_CAPACITY * 2, new SortCache(SortCache.MIN_CAPACITY).capacity());
+        assertEquals(SortCache.MAX_CAPACITY, new SortCache(Integer.MAX_VALUE).capacity());
+    }
+}
@@ -0,0 +1,145 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.rewritemachine;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kframework.attributes.Att;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.BuiltinList;
+import org.kframework.backend.java.kil.BuiltinMap;
+import org.kframework.backend.java.kil.BuiltinSet;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KLabelInjection;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.KSequence;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.TermContext;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.rewritemachine.RHSInstruction.Constructor;
+import org.kframework.backend.java.rewritemachine.RHSInstruction.Constructor.ConstructorType;
+import org.kframework.backend.java.util.RewriteEngineUtils;
+import org.kframework.kore.KORE;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RHSCompilerTest {
+
+    @Mock
+    TermContext termContext;
+    @Mock
+    Definition definition;
+
+    private final Variable x = new Variable("X", Sort.INT);
+    private final Variable y = new Variable("Y", Sort.INT);
+    private final Variable k = new Variable("K", Sort.KSEQUENCE);
+    private final Variable m = new Variable("M", Sort.MAP);
+    private final Variable s = new Variable("S", Sort.SET);
+
+    private Map<Variable, Term> solution() {
+        BuiltinMap.Builder map = BuiltinMap.builder(null);
+        map.put(IntToken.of(3), IntToken.of(4));
+        BuiltinSet.Builder set = BuiltinSet.builder(null);
+        set.add(IntToken.of(7));
+        KSequence.Builder kseq = KSequence.builder();
+        kseq.concatenate(IntToken.of(5));
+        kseq.concatenate(IntToken.of(6));
+        return ImmutableMap.of(
+                x, IntToken.of(10),
+                y, IntToken.of(20),
+                k, kseq.build(),
+                m, map.build(),
+                s, set.build());
+    }
+
+    private static List<RHSInstruction> instructions(Term term) {
+        GenerateRHSInstructions generator = new GenerateRHSInstructions();
+        term.accept(generator);
+        return generator.getInstructions();
+    }
+
+    private void assertEquivalent(Term term) {
+        List<RHSInstruction> instructions = instructions(term);
+        CompiledRHS compiled = RHSCompiler.compile(instructions);
+        for (Map<Variable, Term> solution : Arrays.asList(solution(), Collections.<Variable, Term>emptyMap())) {
+            assertEquals(
+                    RewriteEngineUtils.construct(instructions, solution, termContext),
+                    compiled.construct(solution, termContext));
+        }
+    }
+
+    @Test
+    public void testVariableAndToken() {
+        assertEquivalent(x);
+        assertEquivalent(IntToken.of(1));
+        assertEquals(IntToken.of(10), RHSCompiler.compile(instructions(x)).construct(solution(), termContext));
+    }
+
+    @Test
+    public void testKSequence() {
+        KSequence.Builder builder = KSequence.builder();
+        builder.concatenate(x);
+        builder.concatenate(IntToken.of(1));
+        builder.concatenate(y);
+        builder.concatenate(k);
+        assertEquivalent(builder.build());
+    }
+
+    @Test
+    public void testKList() {
+        assertEquivalent(KList.concatenate(x, IntToken.of(1), y));
+        assertEquivalent(new KLabelInjection(KList.concatenate(IntToken.of(1), x)));
+    }
+
+    @Test
+    public void testBuiltinMap() {
+        BuiltinMap.Builder builder = BuiltinMap.builder(null);
+        builder.put(x, IntToken.of(1));
+        builder.put(IntToken.of(2), y);
+        builder.concatenate(m);
+        assertEquivalent(builder.build());
+    }
+
+    @Test
+    public void testBuiltinSet() {
+        BuiltinSet.Builder builder = BuiltinSet.builder(null);
+        builder.add(x);
+        builder.add(IntToken.of(3));
+        builder.concatenate(s);
+        assertEquivalent(builder.build());
+    }
+
+    @Test
+    public void testBuiltinList() {
+        when(definition.kLabelAttributesOf(Matchers.any())).thenReturn(Att.empty());
+        KLabelConstant operator = KLabelConstant.of(KORE.KLabel("_RHSCompilerTestList_"), definition);
+        KLabelConstant unit = KLabelConstant.of(KORE.KLabel(".RHSCompilerTestList"), definition);
+        assertEquivalent(BuiltinList.builder(Sort.LIST, operator, unit, null)
+                .addAll(x, IntToken.of(1), y)
+                .build());
+    }
+
+    @Test
+    public void testOperandOrder() {
+        List<RHSInstruction> instructions = Arrays.asList(
+                RHSInstruction.PUSH(IntToken.of(1)),
+                RHSInstruction.PUSH(IntToken.of(2)),
+                RHSInstruction.SUBST(x),
+                RHSInstruction.CONSTRUCT(new Constructor(ConstructorType.KLIST, 3)));
+        Term expected = KList.concatenate(IntToken.of(10), IntToken.of(2), IntToken.of(1));
+        assertEquals(expected, RewriteEngineUtils.construct(instructions, solution(), termContext));
+        assertEquals(expected, RHSCompiler.compile(instructions).construct(solution(), termContext));
+    }
+}
@@ -0,0 +1,112 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kframework.attributes.Att;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.BuiltinMap;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.kore.KORE;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AlphaNormalHashTest {
+
+    @Mock
+    GlobalContext globalContext;
+    @Mock
+    Definition definition;
+
+    private static final org.kframework.kore.KLabel foo = KORE.KLabel("alphaNormalHashFoo");
+
+    private final Variable x = new Variable("X", Sort.INT);
+    private final Variable y = new Variable("Y", Sort.INT);
+    private final Variable a = new Variable("A", Sort.INT);
+    private final Variable b = new Variable("B", Sort.INT);
+
+    private KItem foo(Term... children) {
+        when(definition.kLabelAttributesOf(foo)).thenReturn(Att.empty());
+        return new KItem(KLabelConstant.of(foo, definition), KList.concatenate(children), globalContext, Sort.INT,
+                true);
+    }
+
+    private static Term map(Term... entries) {
+        BuiltinMap.Builder builder = BuiltinMap.builder(null);
+        for (int i = 0; i < entries.length; i += 2) {
+            builder.put(entries[i], entries[i + 1]);
+        }
+        return builder.build();
+    }
+
+    private static ConjunctiveFormula constraint() {
+        return ConjunctiveFormula.of((GlobalContext) null);
+    }
+
+    private static String hash(Term... terms) {
+        return hashWith(Collections.emptyList(), terms);
+    }
+
+    private static String hashWith(Collection<Variable> variables, Term... terms) {
+        return AlphaNormalHash.of("", Arrays.asList(terms), variables);
+    }
+
+    @Test
+    public void testAlphaEquivalentFormulas() {
+        assertEquals(
+                hash(constraint().add(x, IntToken.of(1)).add(y, foo(x))),
+                hash(constraint().add(a, IntToken.of(1)).add(b, foo(a))));
+        assertEquals(
+                hash(foo(x, y), constraint().add(y, IntToken.of(1))),
+                hash(foo(a, b), constraint().add(b, IntToken.of(1))));
+        assertEquals(
+                hash(map(x, IntToken.of(1), y, IntToken.of(2))),
+                hash(map(b, IntToken.of(2), a, IntToken.of(1))));
+    }
+
+    @Test
+    public void testNonEquivalentFormulas() {
+        assertNotEquals(
+                hash(constraint().add(x, IntToken.of(1)).add(y, foo(x))),
+                hash(constraint().add(x, IntToken.of(1)).add(y, foo(y))));
+        assertNotEquals(
+                hash(constraint().add(x, IntToken.of(1))),
+                hash(constraint().add(x, IntToken.of(2))));
+        assertNotEquals(
+                hash(constraint().add(x, IntToken.of(1))),
+                hash(constraint().add(new Variable("X", Sort.BOOL), IntToken.of(1))));
+        assertNotEquals(
+                hash(foo(x, y), constraint().add(y, IntToken.of(1))),
+                hash(foo(x, y), constraint().add(x, IntToken.of(1))));
+        assertNotEquals(
+                hash(map(x, IntToken.of(1), y, x)),
+                hash(map(x, IntToken.of(1), y, y)));
+        assertNotEquals(hash(foo(x), null), hash(null, foo(x)));
+    }
+
+    @Test
+    public void testPrefixAndVariables() {
+        assertNotEquals(
+                AlphaNormalHash.of("a", Collections.singletonList(x), Collections.emptyList()),
+                AlphaNormalHash.of("b", Collections.singletonList(x), Collections.emptyList()));
+        assertEquals(hashWith(Arrays.asList(x, a), x), hashWith(Arrays.asList(y, b), y));
+        assertEquals(hashWith(Arrays.asList(x, a), x), hashWith(Arrays.asList(b, y), y));
+        assertNotEquals(hashWith(Arrays.asList(x, a), x), hashWith(Collections.singletonList(a), x));
+        assertNotEquals(hashWith(Collections.singletonList(x), x), hashWith(Collections.singletonList(a), x));
+    }
+}
@@ -0,0 +1,108 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kframework.attributes.Att;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.kore.KORE;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConstraintSlicerTest {
+
+    @Mock
+    GlobalContext globalContext;
+    @Mock
+    Definition definition;
+
+    private static final org.kframework.kore.KLabel foo = KORE.KLabel("sliceFoo");
+    private static final org.kframework.kore.KLabel plus = KORE.KLabel("slicePlus");
+
+    private final Variable x = new Variable("X", Sort.INT);
+    private final Variable y = new Variable("Y", Sort.INT);
+    private final Variable z = new Variable("Z", Sort.INT);
+
+    private KItem foo(Term... children) {
+        when(definition.kLabelAttributesOf(foo)).thenReturn(Att.empty());
+        return new KItem(KLabelConstant.of(foo, definition), KList.concatenate(children), globalContext, Sort.INT,
+                true);
+    }
+
+    private KItem plus(Term left, Term right) {
+        when(definition.kLabelAttributesOf(plus)).thenReturn(Att.empty().add(Att.FUNCTION()).add(Att.SMTLIB(), "+"));
+        return new KItem(KLabelConstant.of(plus, definition), KList.concatenate(left, right), globalContext,
+                Sort.INT, true);
+    }
+
+    private static ConjunctiveFormula constraint() {
+        return ConjunctiveFormula.of((GlobalContext) null);
+    }
+
+    @Test
+    public void testIndependentSlices() {
+        ConjunctiveFormula constraint = constraint()
+                .add(x, IntToken.of(1))
+                .add(y, IntToken.of(1))
+                .add(x, z);
+        List<ConjunctiveFormula> slices = ConstraintSlicer.slices(constraint);
+        assertEquals(2, slices.size());
+        assertEquals(constraint().add(x, IntToken.of(1)).add(x, z).equalities(), slices.get(0).equalities());
+        assertEquals(constraint().add(y, IntToken.of(1)).equalities(), slices.get(1).equalities());
+    }
+
+    @Test
+    public void testSharedConstructorTerm() {
+        // ground terms without an SMT-LIB translation are abstracted by the same variable in both equalities
+        ConjunctiveFormula constraint = constraint()
+                .add(x, foo(IntToken.of(1)))
+                .add(y, foo(IntToken.of(1)));
+        assertEquals(1, ConstraintSlicer.slices(constraint).size());
+
+        ConjunctiveFormula other = constraint()
+                .add(x, foo(IntToken.of(1)))
+                .add(y, foo(IntToken.of(2)));
+        assertEquals(2, ConstraintSlicer.slices(other).size());
+    }
+
+    @Test
+    public void testAtoms() {
+        assertEquals(Collections.singleton(x), ConstraintSlicer.atoms(new Term[]{plus(x, IntToken.of(1))}));
+        assertEquals(Sets.newHashSet(x, foo(IntToken.of(1))),
+                ConstraintSlicer.atoms(new Term[]{plus(x, foo(IntToken.of(1)))}));
+        assertEquals(Collections.emptySet(), ConstraintSlicer.atoms(new Term[]{IntToken.of(1)}));
+        // a whole side of an equality is abstracted if its translation fails
+        assertEquals(Collections.singleton(plus(IntToken.of(1), IntToken.of(2))),
+                ConstraintSlicer.atoms(new Term[]{plus(IntToken.of(1), IntToken.of(2))}));
+    }
+
+    @Test
+    public void testRelevantSlice() {
+        ConjunctiveFormula constraint = constraint()
+                .add(x, IntToken.of(1))
+                .add(y, z)
+                .add(z, foo(IntToken.of(1)));
+        assertEquals(constraint().add(x, IntToken.of(1)).equalities(),
+                ConstraintSlicer.relevantSlice(constraint, plus(x, IntToken.of(1))).equalities());
+        assertEquals(constraint().add(y, z).add(z, foo(IntToken.of(1))).equalities(),
+                ConstraintSlicer.relevantSlice(constraint, foo(IntToken.of(1))).equalities());
+        assertSame(constraint, ConstraintSlicer.relevantSlice(constraint, plus(x, y)));
+        assertTrue(ConstraintSlicer.relevantSlice(constraint, IntToken.of(1)).equalities().isEmpty());
+    }
+}
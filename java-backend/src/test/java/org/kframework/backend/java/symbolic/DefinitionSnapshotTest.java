@@ -0,0 +1,112 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kframework.attributes.Att;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.TermContext;
+import org.kframework.backend.java.util.Profiler2;
+import org.kframework.builtin.BooleanUtils;
+import org.kframework.builtin.Sorts;
+import org.kframework.definition.Module;
+import org.kframework.kore.KLabel;
+import org.kframework.kprove.KProveOptions;
+import org.kframework.krun.KRunOptions;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.BinaryLoader;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.options.SMTOptions;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.kframework.Collections.*;
+import static org.kframework.definition.Constructors.*;
+import static org.kframework.kore.KORE.*;
+
+public class DefinitionSnapshotTest {
+
+    @org.junit.Rule
+    public TemporaryFolder kompiledDir = new TemporaryFolder();
+
+    private static final KLabel FOO = KLabel("foo");
+
+    private final GlobalOptions globalOptions = new GlobalOptions();
+    private final KExceptionManager kem = new KExceptionManager(globalOptions);
+    private final JavaExecutionOptions javaExecutionOptions = new JavaExecutionOptions();
+    private final Profiler2 profiler = new Profiler2(javaExecutionOptions, System.nanoTime());
+    private final BinaryLoader loader = new BinaryLoader(kem);
+
+    private final Module module = Module("SNAPSHOT-TEST", Set(), Set(
+            SyntaxSort(Seq(), Sorts.Int()),
+            Production(FOO, Sorts.Int(), Seq(Terminal("foo")), Att.empty().add(Att.FUNCTION())),
+            Rule(KRewrite(KApply(FOO), KToken("1", Sorts.Int())), BooleanUtils.TRUE, BooleanUtils.TRUE)),
+            Att.empty());
+    private final org.kframework.definition.Definition coreDefinition = Definition(module,
+            Set(module, Module("LANGUAGE-PARSING", Set(), Set(), Att.empty())), Att.empty());
+
+    private FileUtil files;
+
+    @Before
+    public void setUp() {
+        File dir = kompiledDir.getRoot();
+        files = new FileUtil(dir, dir, dir, dir, globalOptions, Collections.emptyMap());
+    }
+
+    private GlobalContext newGlobalContext(Stage stage) {
+        return new GlobalContext(null, globalOptions, new KRunOptions(), new KProveOptions(), javaExecutionOptions,
+                kem, new SMTOptions(), Collections.emptyMap(), files, stage, profiler, null, coreDefinition);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Definition original = new InitializeRewriter.InitializeDefinition()
+                .invoke(module, kem, newGlobalContext(Stage.INITIALIZING));
+        DefinitionSnapshot.save(module, original, loader, files);
+
+        GlobalContext initializing = newGlobalContext(Stage.INITIALIZING);
+        Definition loaded = DefinitionSnapshot.load(module, initializing, loader, files, kem);
+        assertNotNull(loaded);
+        assertNotSame(original, loaded);
+        assertSame(loaded, initializing.getDefinition());
+
+        KLabelConstant foo = KLabelConstant.of(FOO, loaded);
+        assertEquals(1, loaded.functionRules().get(foo).size());
+        org.kframework.backend.java.kil.Rule rule = loaded.functionRules().get(foo).iterator().next();
+        assertSame(initializing, ((KItem) rule.leftHandSide()).globalContext());
+
+        GlobalContext rewriting = newGlobalContext(Stage.REWRITING);
+        rewriting.setDefinition(loaded);
+        int applied = ruleApplications();
+        assertEquals(IntToken.of(1),
+                KItem.of(foo, KList.EMPTY, rewriting).evaluate(TermContext.builder(rewriting).build()));
+        assertEquals(applied + 1, ruleApplications());
+    }
+
+    private int ruleApplications() {
+        return profiler.evalFuncRuleCounter.getCountTop() + profiler.evalFuncRuleCounter.getCountRecursive();
+    }
+
+    @Test
+    public void testOtherModule() {
+        Definition original = new InitializeRewriter.InitializeDefinition()
+                .invoke(module, kem, newGlobalContext(Stage.INITIALIZING));
+        DefinitionSnapshot.save(module, original, loader, files);
+
+        Module other = Module("SNAPSHOT-TEST", Set(), Set(
+                SyntaxSort(Seq(), Sorts.Int()),
+                Production(FOO, Sorts.Int(), Seq(Terminal("foo")), Att.empty().add(Att.FUNCTION())),
+                Rule(KRewrite(KApply(FOO), KToken("2", Sorts.Int())), BooleanUtils.TRUE, BooleanUtils.TRUE)),
+                Att.empty());
+        assertNull(DefinitionSnapshot.load(other, newGlobalContext(Stage.INITIALIZING), loader, files, kem));
+    }
+}
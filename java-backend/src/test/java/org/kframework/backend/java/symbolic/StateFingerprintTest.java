@@ -0,0 +1,97 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.BuiltinMap;
+import org.kframework.backend.java.kil.ConstrainedTerm;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.InjectedKLabel;
+import org.kframework.backend.java.kil.KItemProjection;
+import org.kframework.backend.java.kil.KLabelInjection;
+import org.kframework.backend.java.kil.Kind;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.TermContext;
+import org.kframework.backend.java.kil.Variable;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StateFingerprintTest {
+
+    @Mock
+    TermContext termContext;
+
+    private final Variable x = new Variable("X", Sort.INT);
+
+    private static Term map(int... entries) {
+        BuiltinMap.Builder builder = BuiltinMap.builder(null);
+        for (int i = 0; i < entries.length; i += 2) {
+            builder.put(IntToken.of(entries[i]), IntToken.of(entries[i + 1]));
+        }
+        return builder.build();
+    }
+
+    private ConstrainedTerm state(Term term, ConjunctiveFormula constraint) {
+        return new ConstrainedTerm(term, constraint, termContext);
+    }
+
+    private static ConjunctiveFormula constraint() {
+        return ConjunctiveFormula.of((GlobalContext) null);
+    }
+
+    @Test
+    public void testEqualStates() {
+        assertArrayEquals(
+                StateFingerprint.of(state(map(1, 2, 3, 4), constraint().add(x, IntToken.of(1)))),
+                StateFingerprint.of(state(map(3, 4, 1, 2), constraint().add(x, IntToken.of(1)))));
+    }
+
+    @Test
+    public void testDifferentTerms() {
+        assertFalse(Arrays.equals(
+                StateFingerprint.of(state(map(1, 2, 3, 4), constraint())),
+                StateFingerprint.of(state(map(1, 2, 3, 5), constraint()))));
+        assertFalse(Arrays.equals(
+                StateFingerprint.of(state(map(1, 2), constraint())),
+                StateFingerprint.of(state(map(2, 1), constraint()))));
+        assertFalse(Arrays.equals(
+                StateFingerprint.of(state(x, constraint())),
+                StateFingerprint.of(state(new Variable("Y", Sort.INT), constraint()))));
+    }
+
+    @Test
+    public void testDifferentConstraints() {
+        assertFalse(Arrays.equals(
+                StateFingerprint.of(state(x, constraint().add(x, IntToken.of(1)))),
+                StateFingerprint.of(state(x, constraint().add(x, IntToken.of(2))))));
+        assertFalse(Arrays.equals(
+                StateFingerprint.of(state(x, constraint())),
+                StateFingerprint.of(state(x, constraint().add(x, IntToken.of(1))))));
+    }
+
+    @Test
+    public void testInjectionsAndProjections() {
+        assertArrayEquals(
+                StateFingerprint.of(state(new KLabelInjection(map(1, 2)), constraint())),
+                StateFingerprint.of(state(new KLabelInjection(map(1, 2)), constraint())));
+        assertFalse(Arrays.equals(
+                StateFingerprint.of(state(new KLabelInjection(map(1, 2)), constraint())),
+                StateFingerprint.of(state(new KLabelInjection(map(1, 3)), constraint()))));
+        assertFalse(Arrays.equals(
+                StateFingerprint.of(state(new KLabelInjection(x), constraint())),
+                StateFingerprint.of(state(new InjectedKLabel(x), constraint()))));
+        assertFalse(Arrays.equals(
+                StateFingerprint.of(state(new KItemProjection(Kind.KITEM, x), constraint())),
+                StateFingerprint.of(state(new KItemProjection(Kind.KITEM, new Variable("Y", Sort.INT)), constraint()))));
+        assertFalse(Arrays.equals(
+                StateFingerprint.of(state(new KLabelInjection(x), constraint())),
+                StateFingerprint.of(state(x, constraint()))));
+    }
+}
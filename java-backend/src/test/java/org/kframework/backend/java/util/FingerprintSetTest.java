@@ -0,0 +1,69 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.junit.Test;
+import org.kframework.utils.errorsystem.KEMException;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FingerprintSetTest {
+
+    private static void testAddContains(FingerprintSet set) {
+        assertTrue(set.add(1, 2));
+        assertTrue(set.add(2, 1));
+        assertTrue(set.add(0, 0));
+        assertFalse(set.add(1, 2));
+        assertFalse(set.add(0, 0));
+        assertTrue(set.contains(1, 2));
+        assertTrue(set.contains(2, 1));
+        assertTrue(set.contains(0, 0));
+        assertFalse(set.contains(1, 1));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    public void testAddContains() {
+        testAddContains(new FingerprintSet(false));
+    }
+
+    @Test
+    public void testAddContainsOffHeap() {
+        testAddContains(new FingerprintSet(true));
+    }
+
+    @Test
+    public void testResize() {
+        FingerprintSet set = new FingerprintSet(true);
+        Random random = new Random(42);
+        long[] fingerprints = new long[20000];
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = random.nextLong();
+            assertTrue(set.add(fingerprints[i], ~fingerprints[i]));
+        }
+        assertEquals(fingerprints.length, set.size());
+        assertEquals(1 << 15, set.capacity());
+        for (long fingerprint : fingerprints) {
+            assertTrue(set.contains(fingerprint, ~fingerprint));
+            assertFalse(set.add(fingerprint, ~fingerprint));
+        }
+        assertEquals(fingerprints.length, set.size());
+    }
+
+    @Test(expected = KEMException.class)
+    public void testFullTable() {
+        int maxCapacity = FingerprintSet.INITIAL_CAPACITY * 2;
+        int maxSize = maxCapacity / 4 * 3;
+        FingerprintSet set = new FingerprintSet(false, maxCapacity);
+        for (int i = 1; i <= maxSize; i++) {
+            assertTrue(set.add(i, i));
+        }
+        assertEquals(maxCapacity, set.capacity());
+        assertEquals(maxSize, set.size());
+
+        assertFalse(set.add(1, 1));
+        assertEquals(maxSize, set.size());
+        set.add(maxSize + 1, maxSize + 1);
+    }
+}
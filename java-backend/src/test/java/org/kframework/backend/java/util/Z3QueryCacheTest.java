@@ -0,0 +1,135 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class Z3QueryCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String PRELUDE = "(set-option :auto-config false)";
+    private static final String CHECK_SAT = "(check-sat)";
+
+    private Z3QueryCache cache() {
+        return new Z3QueryCache(new File(folder.getRoot(), Z3QueryCache.FILE_NAME));
+    }
+
+    private String key(Z3QueryCache cache, String query) {
+        return cache.key(PRELUDE, CHECK_SAT, query);
+    }
+
+    @Test
+    public void testAlphaEquivalentQueries() {
+        String q1 = "(declare-fun |X_12| () Int)\n(declare-fun |_7| () Int)\n(assert (< |X_12| _7))";
+        String q2 = "(declare-fun |Y_3| () Int)\n(declare-fun |_9| () Int)\n(assert   (< |Y_3| _9)) ; comment";
+        assertEquals(Z3QueryCache.normalize(q1), Z3QueryCache.normalize(q2));
+    }
+
+    @Test
+    public void testDifferentQueries() {
+        String q1 = "(declare-fun |X| () Int)\n(declare-fun |Y| () Int)\n(assert (< |X| |Y|))";
+        String q2 = "(declare-fun |X| () Int)\n(declare-fun |Y| () Int)\n(assert (< |Y| |X|))";
+        assertEquals("(declare-fun |#v0| () Int) (declare-fun |#v1| () Int) (assert (< |#v0| |#v1|))",
+                Z3QueryCache.normalize(q1));
+        assertNotEquals(Z3QueryCache.normalize(q1), Z3QueryCache.normalize(q2));
+    }
+
+    @Test
+    public void testStringLiterals() {
+        assertEquals("(assert (= \"a|b\" |#v0|))", Z3QueryCache.normalize("(assert (= \"a|b\" |S|))"));
+    }
+
+    @Test
+    public void testKey() {
+        Z3QueryCache cache = cache();
+        String query = "(declare-fun |X| () Int) (assert (< |X| 0))";
+        assertEquals(key(cache, query), key(cache, "(declare-fun |Y| () Int)\n(assert (< |Y| 0))"));
+        assertNotEquals(key(cache, query), key(cache, "(declare-fun |X| () Int) (assert (< |X| 1))"));
+        assertNotEquals(key(cache, query), cache.key("", CHECK_SAT, query));
+        assertNotEquals(key(cache, query), cache.key(PRELUDE, "(check-sat-using smt)", query));
+    }
+
+    @Test
+    public void testGetPut() {
+        Z3QueryCache cache = cache();
+        String sat = key(cache, "(assert true)");
+        String unsat = key(cache, "(assert false)");
+        assertNull(cache.get(sat, 100, 0, true));
+
+        assertTrue(cache.put(sat, "sat", 100, 0));
+        assertTrue(cache.put(unsat, "unsat", 100, 1000));
+        assertFalse(cache.put(sat, "sat", 200, 0));
+        // definite results are reused for any timeout and resource limit
+        assertEquals("sat", cache.get(sat, 1000, 0, false));
+        assertEquals("unsat", cache.get(unsat, 1000, 0, false));
+        assertEquals("unsat", cache.get(unsat, 1000, 5000, false));
+    }
+
+    @Test
+    public void testUnknown() {
+        Z3QueryCache cache = cache();
+        String key = key(cache, "(assert (= |X| 1))");
+        assertTrue(cache.put(key, "unknown", 100, 1000));
+        assertNull(cache.get(key, 100, 1000, false));
+        assertEquals("unknown", cache.get(key, 100, 1000, true));
+        assertEquals("unknown", cache.get(key, 50, 500, true));
+        assertNull(cache.get(key, 200, 1000, true));
+        assertNull(cache.get(key, 100, 2000, true));
+        assertNull(cache.get(key, 100, 0, true));
+
+        // a larger timeout or resource limit replaces the unknown, a smaller one does not
+        assertFalse(cache.put(key, "unknown", 50, 1000));
+        assertFalse(cache.put(key, "unknown", 100, 500));
+        assertTrue(cache.put(key, "unknown", 100, 0));
+        assertEquals("unknown", cache.get(key, 100, 0, true));
+        assertTrue(cache.put(key, "unknown", 200, 0));
+        assertEquals("unknown", cache.get(key, 200, 0, true));
+
+        // a definite result replaces an unknown one, but not the other way around
+        assertTrue(cache.put(key, "unsat", 10, 10));
+        assertFalse(cache.put(key, "unknown", 1000, 0));
+        assertEquals("unsat", cache.get(key, 1000, 0, false));
+    }
+
+    @Test
+    public void testReload() throws IOException {
+        Z3QueryCache cache = cache();
+        String sat = key(cache, "(assert true)");
+        String unknown = key(cache, "(assert (= |X| 1))");
+        cache.put(sat, "sat", 100, 0);
+        cache.put(unknown, "unknown", 100, 1000);
+        cache.put(unknown, "unknown", 200, 1000);
+
+        String oldSat = key(cache, "(assert (= 1 1))");
+        String oldUnknown = key(cache, "(assert (= |Y| 1))");
+        try (Writer writer = new OutputStreamWriter(
+                new FileOutputStream(new File(folder.getRoot(), Z3QueryCache.FILE_NAME), true),
+                StandardCharsets.UTF_8)) {
+            writer.write(oldSat + " sat 100\n");
+            writer.write(oldUnknown + " unknown 100\n");
+            writer.write(key(cache, "(assert (= 2 2))") + " sat x 0\n");
+            writer.write(key(cache, "(assert (= 3 3))") + " uns");
+        }
+
+        Z3QueryCache reloaded = cache();
+        assertEquals("sat", reloaded.get(sat, 100, 0, false));
+        assertEquals("unknown", reloaded.get(unknown, 200, 1000, true));
+        assertEquals("sat", reloaded.get(oldSat, 100, 0, false));
+        // the resource limit of unknown results written without one is not known
+        assertNull(reloaded.get(oldUnknown, 100, 0, true));
+        assertNull(reloaded.get(key(cache, "(assert (= 2 2))"), 100, 0, true));
+        assertNull(reloaded.get(key(cache, "(assert (= 3 3))"), 100, 0, true));
+    }
+}
@@ -24,6 +24,7 @@ import org.kframework.parser.inner.generator.RuleGrammarGenerator;
 import org.kframework.parser.outer.Outer;
 import org.kframework.utils.errorsystem.KEMException;
 import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.LazySerialized;
 import org.kframework.utils.file.FileUtil;
 import scala.Option;
 import scala.Tuple2;
@@ -47,7 +48,10 @@ import static org.kframework.kore.KORE.*;
 
 public class CompiledDefinition implements Serializable {
     public final KompileOptions kompileOptions;
-    private final Definition parsedDefinition;
+    /**
+     * Only deserialized when needed, e.g. to parse or unparse programs, after the definition is loaded.
+     */
+    private final LazySerialized<Definition> parsedDefinition;
     public final Definition kompiledDefinition;
     public final Sort programStartSymbol;
     public final HashMap<String, Sort> configurationVariableDefaultSorts = new HashMap<>();
@@ -60,7 +64,7 @@ public class CompiledDefinition implements Serializable {
 
     public CompiledDefinition(KompileOptions kompileOptions, Definition parsedDefinition, Definition kompiledDefinition, FileUtil files, KExceptionManager kem, KLabel topCellInitializer) {
         this.kompileOptions = kompileOptions;
-        this.parsedDefinition = parsedDefinition;
+        this.parsedDefinition = new LazySerialized<>(Definition.class, parsedDefinition);
         this.kompiledDefinition = kompiledDefinition;
         initializeConfigurationVariableDefaultSorts(files);
         this.programStartSymbol = configurationVariableDefaultSorts.getOrDefault("$PGM", Sorts.K());
@@ -124,7 +128,7 @@ public class CompiledDefinition implements Serializable {
      * The parsed but uncompiled definition
      */
     public Definition getParsedDefinition() {
-        return parsedDefinition;
+        return parsedDefinition.get();
     }
 
     /**
@@ -134,7 +138,7 @@ public class CompiledDefinition implements Serializable {
         return kompiledDefinition.mainModule();
     }
 
-    public String mainSyntaxModuleName() { return parsedDefinition.att().<String>getOptional(Att.SYNTAX_MODULE()).get(); }
+    public String mainSyntaxModuleName() { return getParsedDefinition().att().<String>getOptional(Att.SYNTAX_MODULE()).get(); }
 
     /**
      * @return the module used for generating the program (i.e. ground) parser for the module named moduleName
@@ -142,6 +146,7 @@ public class CompiledDefinition implements Serializable {
      * {@link RuleGrammarGenerator#POSTFIX}. In latter case, it uses the user-defined module.
      */
     public Option<Module> programParsingModuleFor(String moduleName, KExceptionManager kem) {
+        Definition parsedDefinition = getParsedDefinition();
         RuleGrammarGenerator gen = new RuleGrammarGenerator(parsedDefinition);
 
         Option<Module> userProgramParsingModule = parsedDefinition.getModule(moduleName + RuleGrammarGenerator.POSTFIX);
@@ -16,13 +16,30 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
 import java.io.ObjectStreamException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.OverlappingFileLockException;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.jar.Manifest;
 
+/**
+ * Saves and loads serialized objects, such as compiled.bin.
+ * <p>
+ * Files start with a header made of {@link #MAGIC}, {@link #FORMAT_VERSION} and a stamp of the K build that wrote
+ * them, followed by the FST payload. A file written by another build of K is rejected from its header, before any
+ * deserialization. Files without a header, written by older versions of K, are still read. Parts of a saved object
+ * that are not always needed, such as the parsed definition in compiled.bin, are nested as {@link LazySerialized}
+ * payloads, which are only deserialized on first access.
+ */
 @RequestScoped
 public class BinaryLoader {
 
@@ -64,6 +81,38 @@ public class BinaryLoader {
 
     private static ReadWriteLock lock = new ReentrantReadWriteLock();
 
+    /**
+     * "KBIN"
+     */
+    static final int MAGIC = 0x4B42494E;
+    /**
+     * Incremented whenever the layout of the header changes.
+     */
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+    /**
+     * Identifies the K build, or 0 for internal builds, whose files are not checked.
+     */
+    static final int BUILD_STAMP = buildStamp();
+
+    private static int buildStamp() {
+        try {
+            URL url = BinaryLoader.class.getResource("file/versionMarker");
+            URLConnection conn = url == null ? null : url.openConnection();
+            if (!(conn instanceof JarURLConnection)) {
+                return 0;
+            }
+            Manifest mf = ((JarURLConnection) conn).getManifest();
+            String version = BinaryLoader.class.getPackage().getImplementationVersion();
+            String revision = mf.getMainAttributes().getValue("Implementation-Revision");
+            String date = mf.getMainAttributes().getValue("Implementation-Date");
+            return (version + ":" + revision + ":" + date).hashCode();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
     private final KExceptionManager kem;
 
     @Inject
@@ -114,6 +163,18 @@ public class BinaryLoader {
         return null;
     }
 
+    /**
+     * Serializes the object in memory, in the format of the payload of saved files. Used to nest objects that should
+     * only be deserialized on demand in a saved object.
+     */
+    public byte[] serialize(Object o) {
+        return conf.get().asByteArray(o);
+    }
+
+    public <T> T deserialize(Class<T> cls, byte[] bytes) {
+        return cls.cast(conf.get().asObject(bytes));
+    }
+
     /**
      * Locks the file before writing, so that it cannot be read by another instance of K. If the file is currently in
      * use, this method will block until lock can be acquired.
@@ -128,9 +189,12 @@ public class BinaryLoader {
         try (FileOutputStream lockStream = new FileOutputStream(file, true)) {
             //To protect from concurrent access to same file from another process, in standalone mode
             lockStream.getChannel().lock(); //Lock is released automatically when lockStream is closed.
-            //already buffered
-            try (FSTObjectOutput serializer = new FSTObjectOutput(new FileOutputStream(file), conf.get())) {
-                serializer.writeObject(o);
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(header(BUILD_STAMP));
+                //already buffered
+                try (FSTObjectOutput serializer = new FSTObjectOutput(out, conf.get())) {
+                    serializer.writeObject(o);
+                }
             }
         } finally {
             lock.writeLock().unlock();
@@ -149,7 +213,7 @@ public class BinaryLoader {
             } catch (OverlappingFileLockException e) {
                 //We are in Nailgun mode. File lock is not needed.
             }
-            try (FSTObjectInput deserializer = new FSTObjectInput(in, conf.get())) { //already buffered
+            try (FSTObjectInput deserializer = new FSTObjectInput(payload(in), conf.get())) { //already buffered
                 Object obj = deserializer.readObject();
                 return obj;
             } finally {
@@ -161,4 +225,45 @@ public class BinaryLoader {
             lock.readLock().unlock();
         }
     }
+
+    static byte[] header(int buildStamp) {
+        return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).putInt(buildStamp).array();
+    }
+
+    /**
+     * Checks the header of the file, if any, and returns the stream positioned at its payload.
+     */
+    private static InputStream payload(FileInputStream in) throws IOException {
+        FileChannel channel = in.getChannel();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header) < 0) {
+                break;
+            }
+        }
+        header.flip();
+        checkHeader(header);
+        channel.position(header.position());
+        return in;
+    }
+
+    /**
+     * Skips the header at the position of the buffer, or leaves the position unchanged if there is none.
+     *
+     * @throws InvalidObjectException if the file was written by another version of the format or build of K.
+     */
+    static void checkHeader(ByteBuffer buffer) throws InvalidObjectException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(buffer.position()) != MAGIC) {
+            return;
+        }
+        buffer.getInt();
+        int formatVersion = buffer.getInt();
+        int buildStamp = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new InvalidObjectException("Unknown binary format version " + formatVersion);
+        }
+        if (buildStamp != 0 && BUILD_STAMP != 0 && buildStamp != BUILD_STAMP) {
+            throw new InvalidObjectException("Binary file written by another build of K");
+        }
+    }
 }
@@ -0,0 +1,50 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.utils;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * A part of a saved object that is kept serialized, in the format of {@link BinaryLoader#serialize(Object)}, when
+ * the object is loaded, and only deserialized on the first call to {@link #get()}.
+ * <p>
+ * The nested payload is a separate FST object graph, so objects it shares with the rest of the saved object are
+ * saved twice, and are no longer the same objects once loaded.
+ */
+public final class LazySerialized<T> implements Serializable {
+
+    private final Class<T> cls;
+    private byte[] payload;
+    private transient T value;
+
+    public LazySerialized(Class<T> cls, T value) {
+        this.cls = cls;
+        this.value = value;
+    }
+
+    public synchronized T get() {
+        if (value == null) {
+            value = cls.cast(BinaryLoader.conf.get().asObject(payload));
+            payload = null;
+        }
+        return value;
+    }
+
+    /**
+     * @return true if the value was deserialized, or was never serialized.
+     */
+    synchronized boolean isResolved() {
+        return value != null;
+    }
+
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        if (payload == null) {
+            payload = BinaryLoader.conf.get().asByteArray(value);
+        }
+        out.defaultWriteObject();
+        if (value != null) {
+            payload = null;
+        }
+    }
+}
@@ -42,9 +42,35 @@ public class SMTOptions implements Serializable {
     public String smtPrelude;
 
     @Parameter(names="--z3-jni", description="Invokes Z3 as JNI library. Default is external process. " +
-            "JNI is slightly faster, but can potentially lead to JVM crash.")
+            "JNI is faster, since each thread keeps a Z3 context that loads the SMT prelude once, " +
+            "but can potentially lead to JVM crash.")
     public boolean z3JNI = false;
 
+    @Parameter(names="--z3-rlimit", description="Resource limit of Z3 for each query with --z3-jni. Unlike " +
+            "timeouts, resource limits give the same results on every machine. Default is 0, for no limit.")
+    public int z3RLimit = 0;
+
+    @Parameter(names="--z3-pool-size", description="Number of resident Z3 processes to keep running. Each process " +
+            "loads the SMT prelude once and checks queries inside push/pop scopes. Default is 0, " +
+            "which starts a fresh Z3 process for every query. Ignored with --z3-jni.")
+    public int z3PoolSize = 0;
+
+    @Parameter(names="--z3-workers", description="Maximal number of Z3 queries checked concurrently. " +
+            "Further queries wait until a worker is free. Default is 1.")
+    public int z3Workers = 1;
+
+    @Parameter(names="--z3-cache", description="Cache Z3 query results on disk and reuse them in later runs. " +
+            "The cache is stored in the kompiled directory, unless --z3-cache-dir is given.")
+    public boolean z3Cache = false;
+
+    @Parameter(names="--z3-cache-dir", description="Directory where the Z3 query cache is stored. " +
+            "Activates --z3-cache automatically.")
+    public String z3CacheDir;
+
+    @Parameter(names="--z3-cache-unknown", description="Also reuse cached 'unknown' results, e.g. timeouts, " +
+            "for queries with the same or smaller timeout. By default only 'sat' and 'unsat' results are reused.")
+    public boolean z3CacheUnknown = false;
+
     @Parameter(names="--z3-cnstr-timeout", description="The default soft timeout (in milli seconds) of Z3 for checking constraint satisfiability.")
     public int z3CnstrTimeout = 50;
 
@@ -0,0 +1,94 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.nustaq.serialization.FSTObjectOutput;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BinaryLoaderTest {
+
+    private File file;
+    private BinaryLoader loader;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("binary-loader", ".bin");
+        loader = new BinaryLoader(new KExceptionManager(new GlobalOptions()));
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<String> list = new ArrayList<>(Arrays.asList("a", "b", "c"));
+        loader.saveSynchronized(file, list);
+        assertEquals(list, loader.loadSynchronized(file));
+    }
+
+    @Test
+    public void testLegacyFile() throws Exception {
+        List<String> list = new ArrayList<>(Arrays.asList("a", "b", "c"));
+        try (FSTObjectOutput serializer = new FSTObjectOutput(new FileOutputStream(file), BinaryLoader.conf.get())) {
+            serializer.writeObject(list);
+        }
+        assertEquals(list, loader.loadSynchronized(file));
+    }
+
+    @Test(expected = InvalidObjectException.class)
+    public void testOtherFormatVersion() throws Exception {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(ByteBuffer.allocate(BinaryLoader.HEADER_SIZE)
+                    .putInt(BinaryLoader.MAGIC).putInt(BinaryLoader.FORMAT_VERSION + 1).putInt(0).array());
+        }
+        loader.loadSynchronized(file);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLazySerialized() throws Exception {
+        ArrayList<String> list = new ArrayList<>(Arrays.asList("a", "b", "c"));
+        LazySerialized<ArrayList> lazy = new LazySerialized<>(ArrayList.class, list);
+        assertSame(list, lazy.get());
+
+        loader.saveSynchronized(file, Arrays.asList("d", lazy));
+        List<Object> loaded = (List<Object>) loader.loadSynchronized(file);
+        assertEquals("d", loaded.get(0));
+        LazySerialized<ArrayList> loadedLazy = (LazySerialized<ArrayList>) loaded.get(1);
+        assertFalse(loadedLazy.isResolved());
+        assertEquals(list, loadedLazy.get());
+        assertTrue(loadedLazy.isResolved());
+        assertSame(loadedLazy.get(), loadedLazy.get());
+
+        // a resolved value is serialized again when saved
+        loader.saveSynchronized(file, loadedLazy);
+        assertEquals(list, ((LazySerialized<ArrayList>) loader.loadSynchronized(file)).get());
+    }
+
+    @Test
+    public void testCheckHeader() throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(BinaryLoader.header(BinaryLoader.BUILD_STAMP));
+        BinaryLoader.checkHeader(buffer);
+        assertEquals(BinaryLoader.HEADER_SIZE, buffer.position());
+
+        ByteBuffer legacy = ByteBuffer.wrap(new byte[BinaryLoader.HEADER_SIZE]);
+        BinaryLoader.checkHeader(legacy);
+        assertEquals(0, legacy.position());
+    }
+}
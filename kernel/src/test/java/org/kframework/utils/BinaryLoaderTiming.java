@@ -0,0 +1,69 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.utils;
+
+import org.kframework.kompile.CompiledDefinition;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.nustaq.serialization.FSTObjectInput;
+import org.nustaq.serialization.FSTObjectOutput;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+/**
+ * Compares the time to load the compiled.bin of a kompiled definition, whose parsed definition is only deserialized
+ * on first access, with the time FST takes to deserialize the same definitions as one plain object graph, as
+ * compiled.bin was before.
+ * <p>
+ * Usage, from the kernel directory:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.kframework.utils.BinaryLoaderTiming \
+ *     -Dexec.args="path/to/definition-kompiled [runs]"
+ * </pre>
+ */
+public class BinaryLoaderTiming {
+
+    public static void main(String[] args) throws Exception {
+        File compiled = new File(args[0], "compiled.bin");
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        BinaryLoader loader = new BinaryLoader(new KExceptionManager(new GlobalOptions()));
+
+        CompiledDefinition definition = loader.loadOrDie(CompiledDefinition.class, compiled);
+        File plain = File.createTempFile("compiled-plain", ".bin");
+        plain.deleteOnExit();
+        try (FSTObjectOutput out = new FSTObjectOutput(new FileOutputStream(plain), BinaryLoader.conf.get())) {
+            out.writeObject(new Object[]{definition.kompiledDefinition, definition.getParsedDefinition()});
+        }
+        System.out.printf("compiled.bin: %d bytes, plain FST: %d bytes%n", compiled.length(), plain.length());
+
+        long[] load = new long[runs];
+        long[] resolve = new long[runs];
+        long[] fst = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            definition = loader.loadOrDie(CompiledDefinition.class, compiled);
+            load[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            definition.getParsedDefinition();
+            resolve[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            try (FileInputStream in = new FileInputStream(plain);
+                 FSTObjectInput deserializer = new FSTObjectInput(in, BinaryLoader.conf.get())) {
+                deserializer.readObject();
+            }
+            fst[i] = System.nanoTime() - start;
+        }
+        print("load compiled.bin", load);
+        print("resolve parsed definition", resolve);
+        print("plain FST", fst);
+    }
+
+    private static void print(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-28s min %8.1f ms, median %8.1f ms%n", name, sorted[0] / 1e6, sorted[sorted.length / 2] / 1e6);
+    }
+}